@@ -2,25 +2,61 @@ package io.flutter.plugins.nativeview;
 
 import android.content.Context;
 import android.os.Bundle;
+import android.os.Trace;
 import android.view.MotionEvent;
 import android.view.View;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
 import io.flutter.embedding.engine.FlutterEngine;
-import java.util.function.Supplier;
+import io.flutter.plugin.common.BinaryMessenger;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Map;
 
-/** Base class for native views rendered below a transparent Flutter view. */
-public abstract class NativeView {
+/**
+ * Base class for native views rendered below a transparent Flutter view.
+ *
+ * <p>Each view has its own {@link Lifecycle}, bounded by the host activity's lifecycle and by
+ * visibility: a shown view follows the host up to resumed, a hidden view is held at {@link
+ * #getHiddenLifecycleState()}.
+ */
+public abstract class NativeView implements LifecycleOwner {
 
   @Nullable private View contentView;
   @Nullable private Context context;
   @Nullable private FlutterEngine flutterEngine;
-  @Nullable private Supplier<Lifecycle> lifecycleSupplier;
+  private LifecycleRegistry lifecycleRegistry = new LifecycleRegistry(this);
+  private Lifecycle.State hostState = Lifecycle.State.CREATED;
   @Nullable private String viewKey;
+  @Nullable private BinaryMessenger messenger;
+  @Nullable private String messageChannel;
+  private Map<String, Object> creationParams = Collections.emptyMap();
+  private volatile boolean isPrepared = false;
   private boolean isInitialized = false;
   private boolean isVisible = false;
 
+  /**
+   * Whether {@link #onPrepare()} runs on a background thread when the view is added from Dart.
+   *
+   * <p>When true, the Dart {@code addView} call completes only after preparation has finished and
+   * {@link #onCreateView()} has run on the main thread. Several such views added at once are
+   * prepared in parallel.
+   */
+  protected boolean prepareInBackground() {
+    return false;
+  }
+
+  /**
+   * Performs setup that does not touch views, such as loading data, decoding resources or building
+   * object graphs. Called before {@link #onCreateView()}, on a background thread if {@link
+   * #prepareInBackground()} returns true and on the main thread otherwise. {@link #getContext()}
+   * and {@link #getFlutterEngine()} are available.
+   */
+  protected void onPrepare() {}
+
   /** Creates the native view. Called when FlutterEngine is available. */
   @NonNull
   protected abstract View onCreateView();
@@ -28,6 +64,13 @@ public abstract class NativeView {
   /** Called after the view is added to the hierarchy. */
   protected void onViewCreated() {}
 
+  /**
+   * Called on the main thread with the properties the Dart widget changed, coalesced per frame.
+   * Removed properties map to null. Right after the view is added, all current properties are
+   * delivered at once, so a recycled, prewarmed or re-created view starts in sync.
+   */
+  protected void onPropertiesChanged(@NonNull Map<String, Object> changes) {}
+
   /** Handles touch events from the Activity. */
   public void dispatchTouchEvent(@NonNull MotionEvent event) {
     if (contentView != null && isVisible) {
@@ -41,43 +84,167 @@ public abstract class NativeView {
   /** Called when this view is hidden. */
   protected void onHide() {}
 
+  /** Called when the view's own lifecycle reaches started: host started and view shown. */
   protected void onStart() {}
 
+  /** Called when the view's own lifecycle reaches resumed: host resumed and view shown. */
   protected void onResume() {}
 
+  /** Called when the host pauses or the view is hidden while resumed. */
   protected void onPause() {}
 
+  /** Called when the host stops or the view is hidden, unless hidden views are only paused. */
   protected void onStop() {}
 
+  /**
+   * Returns the lifecycle state a hidden view is held at. Defaults to {@link
+   * Lifecycle.State#CREATED}, which stops hidden views; return {@link Lifecycle.State#STARTED} to
+   * only pause them.
+   */
+  @NonNull
+  protected Lifecycle.State getHiddenLifecycleState() {
+    return Lifecycle.State.CREATED;
+  }
+
   protected void onSaveInstanceState(@NonNull Bundle outState) {}
 
   protected void onLowMemory() {}
 
+  /**
+   * Forwarded from {@link android.content.ComponentCallbacks2#onTrimMemory(int)}. Release caches
+   * proportionally to {@code level}; the host may additionally dispose this view if it is hidden.
+   */
+  protected void onTrimMemory(int level) {}
+
+  /**
+   * Returns an estimate of the memory this view keeps alive while hidden, used by the hidden view
+   * cache budget. Defaults to one ARGB_8888 frame of the view's last laid-out size; override to
+   * account for textures, bitmaps or other large resources.
+   */
+  protected long getEstimatedMemoryBytes() {
+    if (contentView == null) {
+      return 0;
+    }
+    return (long) contentView.getWidth() * contentView.getHeight() * 4;
+  }
+
+  /**
+   * Called with a binary message sent by the Dart widget of this view, on a background thread.
+   * The buffer is only valid during the call; copy what must be kept. The Dart side sends the
+   * next message once this returns, dropping the oldest queued ones if this falls behind.
+   */
+  protected void onMessage(@NonNull ByteBuffer message) {}
+
+  /**
+   * Sends a binary message to the Dart widget of this view, without copying. Call on the main
+   * thread with a direct buffer whose position marks the end of the payload, as {@link
+   * BinaryMessenger#send} expects.
+   */
+  protected final void sendMessage(@NonNull ByteBuffer message) {
+    if (messenger != null && messageChannel != null) {
+      messenger.send(messageChannel, message);
+    }
+  }
+
   /** Called when the view is being destroyed. */
   protected void onDispose() {}
 
+  /**
+   * Called when the view is removed but parked in its factory's recycle pool instead of being
+   * disposed. Reset any per-use state here; the view tree is kept.
+   */
+  protected void onRecycle() {}
+
+  /** Called when a recycled view is taken from the pool and added again. */
+  protected void onReuse() {}
+
   // Internal methods used by NativeViewFlutterActivity
 
   final void initialize(
       @NonNull String viewKey,
       @NonNull Context context,
-      @NonNull FlutterEngine flutterEngine,
-      @NonNull Supplier<Lifecycle> lifecycleSupplier) {
+      @NonNull FlutterEngine flutterEngine) {
     if (isInitialized) {
       return;
     }
+    bind(viewKey, context, flutterEngine);
+    prepare();
+    Trace.beginSection("NativeView.onCreateView");
+    try {
+      contentView = onCreateView();
+    } finally {
+      Trace.endSection();
+    }
+    isInitialized = true;
+    updateLifecycleState();
+  }
+
+  /** Makes the host available to {@link #onPrepare()} ahead of {@link #initialize}. */
+  final void bind(
+      @NonNull String viewKey,
+      @NonNull Context context,
+      @NonNull FlutterEngine flutterEngine) {
     this.viewKey = viewKey;
     this.context = context;
     this.flutterEngine = flutterEngine;
-    this.lifecycleSupplier = lifecycleSupplier;
-    contentView = onCreateView();
-    isInitialized = true;
+  }
+
+  /** Runs {@link #onPrepare()} once. May be called from a background thread. */
+  final void prepare() {
+    if (!isPrepared) {
+      Trace.beginSection("NativeView.onPrepare");
+      try {
+        onPrepare();
+      } finally {
+        Trace.endSection();
+      }
+      isPrepared = true;
+    }
+  }
+
+  /** Routes messages on {@code channel} to {@link #onMessage} through {@code taskQueue}. */
+  final void attachMessenger(
+      @NonNull BinaryMessenger messenger,
+      @NonNull String channel,
+      @NonNull BinaryMessenger.TaskQueue taskQueue) {
+    detachMessenger();
+    this.messenger = messenger;
+    messageChannel = channel;
+    messenger.setMessageHandler(
+        channel,
+        (message, reply) -> {
+          try {
+            if (message != null) {
+              onMessage(message);
+            }
+          } finally {
+            // The empty reply is the Dart side's signal to send the next message.
+            reply.reply(null);
+          }
+        },
+        taskQueue);
+  }
+
+  final void detachMessenger() {
+    if (messenger != null && messageChannel != null) {
+      messenger.setMessageHandler(messageChannel, null);
+    }
+    messenger = null;
+    messageChannel = null;
   }
 
   final void notifyViewCreated() {
     onViewCreated();
   }
 
+  final void setCreationParams(@Nullable Map<String, Object> params) {
+    creationParams = params != null ? params : Collections.emptyMap();
+  }
+
+  final void notifyPropertiesChanged(@NonNull Map<String, Object> changes) {
+    onPropertiesChanged(changes);
+  }
+
   @Nullable
   final View getView() {
     return contentView;
@@ -101,9 +268,9 @@ public abstract class NativeView {
       isVisible = true;
       if (contentView != null) {
         contentView.setVisibility(View.VISIBLE);
-        contentView.bringToFront();
       }
       onShow();
+      updateLifecycleState();
     }
   }
 
@@ -114,18 +281,88 @@ public abstract class NativeView {
         contentView.setVisibility(View.GONE);
       }
       onHide();
+      updateLifecycleState();
     }
   }
 
+  /** Sets the lifecycle state of the host activity, which bounds this view's own lifecycle. */
+  final void setHostState(@NonNull Lifecycle.State state) {
+    hostState = state;
+    updateLifecycleState();
+  }
+
+  /** Moves the view's lifecycle one state at a time towards the host and visibility bound. */
+  private void updateLifecycleState() {
+    if (!isInitialized) {
+      return;
+    }
+    Lifecycle.State hiddenState = getHiddenLifecycleState();
+    if (hiddenState.compareTo(Lifecycle.State.CREATED) < 0) {
+      hiddenState = Lifecycle.State.CREATED;
+    }
+    Lifecycle.State bound = isVisible ? Lifecycle.State.RESUMED : hiddenState;
+    Lifecycle.State target = hostState.compareTo(bound) < 0 ? hostState : bound;
+    if (target.compareTo(Lifecycle.State.CREATED) < 0) {
+      target = Lifecycle.State.CREATED;
+    }
+
+    Lifecycle.State current = lifecycleRegistry.getCurrentState();
+    while (current != target) {
+      if (current.compareTo(target) < 0) {
+        if (current == Lifecycle.State.CREATED) {
+          onStart();
+          current = Lifecycle.State.STARTED;
+        } else if (current == Lifecycle.State.STARTED) {
+          onResume();
+          current = Lifecycle.State.RESUMED;
+        } else {
+          current = Lifecycle.State.CREATED;
+        }
+        lifecycleRegistry.setCurrentState(current);
+      } else if (current == Lifecycle.State.RESUMED) {
+        current = Lifecycle.State.STARTED;
+        lifecycleRegistry.setCurrentState(current);
+        onPause();
+      } else {
+        current = Lifecycle.State.CREATED;
+        lifecycleRegistry.setCurrentState(current);
+        onStop();
+      }
+    }
+  }
+
+  final void recycle() {
+    detachMessenger();
+    hide();
+    onRecycle();
+  }
+
+  final void reuse() {
+    onReuse();
+  }
+
   final void dispose() {
-    onDispose();
+    detachMessenger();
+    // Stop first so onPause/onStop pair up with onStart/onResume.
+    setHostState(Lifecycle.State.CREATED);
+    Trace.beginSection("NativeView.onDispose");
+    try {
+      onDispose();
+    } finally {
+      Trace.endSection();
+    }
     contentView = null;
     context = null;
     flutterEngine = null;
-    lifecycleSupplier = null;
     viewKey = null;
+    creationParams = Collections.emptyMap();
+    isPrepared = false;
     isInitialized = false;
-    isVisible = false;
+    if (lifecycleRegistry.getCurrentState() != Lifecycle.State.INITIALIZED) {
+      lifecycleRegistry.setCurrentState(Lifecycle.State.DESTROYED);
+      // A destroyed lifecycle cannot restart; a factory may hand out this instance again.
+      lifecycleRegistry = new LifecycleRegistry(this);
+    }
   }
 
   @Nullable
@@ -138,8 +375,23 @@ public abstract class NativeView {
     return flutterEngine;
   }
 
-  @Nullable
-  protected final Lifecycle getLifecycle() {
-    return lifecycleSupplier != null ? lifecycleSupplier.get() : null;
+  /**
+   * Returns the creation params the Dart widget passed with its add, or an empty map. Available
+   * from {@link #onPrepare()} on; recycled and prewarmed views were built before the add and see
+   * the new params from {@link #onReuse()} or {@link #onViewCreated()}.
+   */
+  @NonNull
+  protected final Map<String, Object> getCreationParams() {
+    return creationParams;
+  }
+
+  /**
+   * Returns this view's own lifecycle, which combines the host lifecycle with visibility. Observers
+   * must be added on the main thread.
+   */
+  @NonNull
+  @Override
+  public final Lifecycle getLifecycle() {
+    return lifecycleRegistry;
   }
 }
@@ -0,0 +1,148 @@
+package io.flutter.plugins.nativeview;
+
+import android.content.Context;
+import android.view.View;
+import android.widget.FrameLayout;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Container for the native views below the Flutter view.
+ *
+ * <p>Keeps the z-order of its children in a linked stack and applies it through the drawing order,
+ * so raising a view is constant time and, unlike {@link android.view.ViewGroup#bringChildToFront},
+ * does not reorder children or request a layout.
+ */
+final class NativeViewContainer extends FrameLayout {
+
+  private static final class Layer {
+    final View view;
+    @Nullable Layer above;
+    @Nullable Layer below;
+    int childIndex;
+
+    Layer(@NonNull View view) {
+      this.view = view;
+    }
+  }
+
+  private final Map<View, Layer> layers = new IdentityHashMap<>();
+  @Nullable private Layer top;
+  @Nullable private Layer bottom;
+
+  /** Child index per drawing position, bottom first; rebuilt lazily after an order change. */
+  @Nullable private int[] drawingOrder;
+
+  NativeViewContainer(@NonNull Context context) {
+    super(context);
+    setChildrenDrawingOrderEnabled(true);
+  }
+
+  /** Adds {@code view} on top of all other native views. */
+  void addNativeView(@NonNull View view) {
+    addView(view);
+    Layer layer = new Layer(view);
+    layers.put(view, layer);
+    pushOnTop(layer);
+    drawingOrder = null;
+  }
+
+  /** Removes {@code view} from the container and the z-order. */
+  void removeNativeView(@NonNull View view) {
+    Layer layer = layers.remove(view);
+    if (layer != null) {
+      unlink(layer);
+    }
+    removeView(view);
+    drawingOrder = null;
+  }
+
+  /** Returns the topmost native view, or null if the container is empty. */
+  @Nullable
+  View getTopView() {
+    return top != null ? top.view : null;
+  }
+
+  /** Returns the native view directly below {@code view}, or null if it is the bottom one. */
+  @Nullable
+  View getViewBelow(@NonNull View view) {
+    Layer layer = layers.get(view);
+    return layer != null && layer.below != null ? layer.below.view : null;
+  }
+
+  @Override
+  public void bringChildToFront(@NonNull View child) {
+    Layer layer = layers.get(child);
+    if (layer == null) {
+      super.bringChildToFront(child);
+      return;
+    }
+    if (layer == top) {
+      return;
+    }
+    unlink(layer);
+    pushOnTop(layer);
+    drawingOrder = null;
+    invalidate();
+  }
+
+  @Override
+  protected int getChildDrawingOrder(int childCount, int drawingPosition) {
+    int[] order = drawingOrder;
+    if (order == null || order.length != childCount) {
+      order = buildDrawingOrder(childCount);
+      drawingOrder = order;
+    }
+    return order[drawingPosition];
+  }
+
+  @NonNull
+  private int[] buildDrawingOrder(int childCount) {
+    int[] order = new int[childCount];
+    for (int i = 0; i < childCount; i++) {
+      Layer layer = layers.get(getChildAt(i));
+      if (layer != null) {
+        layer.childIndex = i;
+      }
+    }
+    int position = 0;
+    for (Layer layer = bottom; layer != null && position < childCount; layer = layer.above) {
+      order[position++] = layer.childIndex;
+    }
+    // Children added without addNativeView are drawn on top, in child order.
+    for (int i = 0; i < childCount && position < childCount; i++) {
+      if (!layers.containsKey(getChildAt(i))) {
+        order[position++] = i;
+      }
+    }
+    return order;
+  }
+
+  private void pushOnTop(@NonNull Layer layer) {
+    layer.below = top;
+    layer.above = null;
+    if (top != null) {
+      top.above = layer;
+    } else {
+      bottom = layer;
+    }
+    top = layer;
+  }
+
+  private void unlink(@NonNull Layer layer) {
+    if (layer.above != null) {
+      layer.above.below = layer.below;
+    } else {
+      top = layer.below;
+    }
+    if (layer.below != null) {
+      layer.below.above = layer.above;
+    } else {
+      bottom = layer.above;
+    }
+    layer.above = null;
+    layer.below = null;
+  }
+}
@@ -1,19 +1,43 @@
 package io.flutter.plugins.nativeview;
 
 import android.app.Activity;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.MutableContextWrapper;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Trace;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.widget.FrameLayout;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.lifecycle.Lifecycle;
 import io.flutter.embedding.engine.FlutterEngine;
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.EventChannel;
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
@@ -25,8 +49,6 @@ class NativeViewDelegate implements MethodChannel.MethodCallHandler {
   interface Host {
     Activity getActivity();
 
-    Lifecycle getHostLifecycle();
-
     void updateGestureHandlerTarget(@Nullable NativeView nativeView);
   }
 
@@ -36,10 +58,148 @@ class NativeViewDelegate implements MethodChannel.MethodCallHandler {
   private final Map<String, Supplier<NativeView>> viewFactories = new HashMap<>();
   private final Map<String, NativeView> nativeViews = new HashMap<>();
 
+  /** Views built ahead of time by {@link #prewarmViews}, detached and hidden until added. */
+  private final Map<String, NativeView> prewarmedViews = new HashMap<>();
+
+  /** Keys waiting for the next main-thread idle slot to be prewarmed. */
+  private final Set<String> pendingPrewarmKeys = new LinkedHashSet<>();
+
+  /**
+   * Views waiting for their queued add to apply. Those prepared in the background already have
+   * their view; the others are only bound, and create it when the add applies.
+   */
+  private final Map<String, NativeView> preparedViews = new HashMap<>();
+
+  /** Callbacks waiting for a background preparation to finish, by key. */
+  private final Map<String, List<Runnable>> pendingPreparations = new HashMap<>();
+
+  /** Keys whose background preparation failed; the next add for them fails as well. */
+  private final Set<String> failedPreparations = new HashSet<>();
+
+  /** Creation params per view key, as sent with the add from Dart; kept until it is removed. */
+  private final Map<String, Map<String, Object>> creationParams = new HashMap<>();
+
+  /** Current properties per view key, delivered in full whenever a view is (re)attached. */
+  private final Map<String, Map<String, Object>> viewProperties = new HashMap<>();
+
+  /** Removals requested while the view was still being prepared, applied after its add. */
+  private final Set<String> pendingRemovals = new HashSet<>();
+
+  /** A view-changing call, replied to once it has been applied. */
+  private static final class QueuedCall {
+    final Collection<String> addKeys;
+    final Supplier<Object> apply;
+    final MethodChannel.Result result;
+
+    QueuedCall(
+        @NonNull Collection<String> addKeys,
+        @NonNull Supplier<Object> apply,
+        @NonNull MethodChannel.Result result) {
+      this.addKeys = addKeys;
+      this.apply = apply;
+      this.result = result;
+    }
+  }
+
+  /**
+   * View-changing calls in arrival order. While the head waits for background preparation, later
+   * calls wait behind it, so they reach the views in the order Dart sent them.
+   */
+  private final ArrayDeque<QueuedCall> queuedCalls = new ArrayDeque<>();
+
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+  /** Views handed over from the previous activity instance, keyed in z-order, bottom first. */
+  static final class RetainedViews {
+    final Map<String, NativeView> views = new LinkedHashMap<>();
+    final Map<String, int[]> viewBounds = new HashMap<>();
+    @Nullable final String activeViewKey;
+
+    RetainedViews(@Nullable String activeViewKey) {
+      this.activeViewKey = activeViewKey;
+    }
+  }
+
+  private boolean retainViewsAcrossConfigChanges = false;
+  @Nullable private RetainedViews pendingRetainedViews;
+
+  /** Lifecycle state of the host activity, passed on to every attached view. */
+  private Lifecycle.State hostState = Lifecycle.State.CREATED;
+  @Nullable private ExecutorService backgroundExecutor;
+
+  private final List<NativeViewMetrics.Listener> metricsListeners = new ArrayList<>();
+  private final Map<String, NativeViewMetrics> viewMetrics = new HashMap<>();
+  private boolean dartMetricsEnabled = false;
+
+  /** Start times of adds whose first draw has not been seen yet, by key. */
+  private final Map<String, Long> firstDrawStarts = new HashMap<>();
+
+  @Nullable private ViewTreeObserver.OnDrawListener firstDrawListener;
+  private final List<String> drawnKeys = new ArrayList<>();
+
+  /** Sink of the lifecycle event stream while Dart listens to it. */
+  @Nullable private EventChannel.EventSink eventSink;
+
+  @Nullable private EventChannel eventChannel;
+
+  /** Serial background queue on which views receive their binary messages. */
+  @Nullable private BinaryMessenger.TaskQueue messageTaskQueue;
+
+  /** Removed views kept for reuse, per factory key. */
+  private final Map<String, ArrayDeque<NativeView>> recyclePools = new HashMap<>();
+
+  /** Maximum number of pooled views per factory key. Keys without an entry are not pooled. */
+  private final Map<String, Integer> recyclePoolSizes = new HashMap<>();
+
+  /**
+   * Last bounds reported by Dart per key, as left, top, width, height in physical pixels. Kept for
+   * keys whose view is not added yet so the bounds apply as soon as it is.
+   */
+  private final Map<String, int[]> viewBounds = new HashMap<>();
+
+  /** Texture snapshots standing in for parked live views during route transitions, by key. */
+  private final Map<String, NativeViewSnapshot> snapshots = new HashMap<>();
+
+  /** Live views made invisible while their snapshot is shown. */
+  private final Set<View> parkedViews = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  private int snapshotCount = 0;
+  private long totalSnapshotCaptureNanos = 0;
+
+  /** Reverse index from attached views to their keys. */
+  private final Map<View, String> viewKeys = new IdentityHashMap<>();
+
+  /** Added view keys ordered from least to most recently shown. */
+  private final LinkedHashSet<String> showOrder = new LinkedHashSet<>();
+
+  /** Keys evicted by the hidden view cache, re-added transparently on the next show. */
+  private final Set<String> evictedKeys = new HashSet<>();
+
+  private int maxHiddenViews = Integer.MAX_VALUE;
+  private long maxHiddenBytes = Long.MAX_VALUE;
+
+  /** True while {@link #applyTransaction} runs; gesture target updates wait until it ends. */
+  private boolean inTransaction = false;
+
+  private boolean gestureTargetChanged = false;
+
+  /** Views made invisible by {@link #updateOcclusion()} because an opaque view covers them. */
+  private final Set<View> occludedViews = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  /** Views drawn after the last {@link #updateOcclusion()}, topmost first. Reused across walks. */
+  private final ArrayList<View> drawnViews = new ArrayList<>();
+
+  private int occlusionCullCount = 0;
+
+  @Nullable private MessageQueue.IdleHandler prewarmIdleHandler;
+  private int prewarmHitCount = 0;
+  private int prewarmMissCount = 0;
+
   @Nullable private String activeViewKey;
   @Nullable private FlutterEngine cachedFlutterEngine;
+  @Nullable private NativeViewPlugin enginePlugin;
   @Nullable private FrameLayout viewWrapper;
-  @Nullable private FrameLayout nativeViewContainer;
+  @Nullable private NativeViewContainer nativeViewContainer;
   @Nullable private MethodChannel methodChannel;
   @Nullable private NativeViewGestureHandler gestureHandler;
 
@@ -74,59 +234,669 @@ class NativeViewDelegate implements MethodChannel.MethodCallHandler {
     return gestureHandler;
   }
 
+  boolean addView(@NonNull String key) {
+    Trace.beginSection("NativeViewDelegate.addView");
+    boolean isNew = !nativeViews.containsKey(key);
+    long start = isMetricsEnabled() && isNew ? System.nanoTime() : 0;
+    try {
+      boolean added = performAddView(key);
+      if (added && start != 0) {
+        recordMetric(key, NativeViewMetrics.CREATE, System.nanoTime() - start);
+      }
+      if (added && isNew && (start != 0 || eventSink != null)) {
+        awaitFirstDraw(key, start);
+      }
+      if (added && isNew) {
+        sendEvent("created", key, null);
+      } else if (!added) {
+        sendEvent("error", key, "Failed to add view");
+      }
+      return added;
+    } finally {
+      Trace.endSection();
+    }
+  }
+
   boolean showView(@NonNull String key) {
+    Trace.beginSection("NativeViewDelegate.showView");
+    long start = isMetricsEnabled() ? System.nanoTime() : 0;
+    try {
+      boolean shown = performShowView(key);
+      if (shown && start != 0) {
+        recordMetric(key, NativeViewMetrics.SHOW, System.nanoTime() - start);
+      }
+      if (shown) {
+        sendEvent("shown", key, null);
+      }
+      return shown;
+    } finally {
+      Trace.endSection();
+    }
+  }
+
+  boolean hideView(@NonNull String key) {
+    Trace.beginSection("NativeViewDelegate.hideView");
+    long start = isMetricsEnabled() ? System.nanoTime() : 0;
+    try {
+      boolean hidden = performHideView(key);
+      if (hidden && start != 0) {
+        recordMetric(key, NativeViewMetrics.HIDE, System.nanoTime() - start);
+      }
+      if (hidden) {
+        sendEvent("hidden", key, null);
+      }
+      return hidden;
+    } finally {
+      Trace.endSection();
+    }
+  }
+
+  boolean removeView(@NonNull String key) {
+    Trace.beginSection("NativeViewDelegate.removeView");
+    boolean wasAttached = nativeViews.containsKey(key);
+    long start = isMetricsEnabled() && wasAttached ? System.nanoTime() : 0;
+    try {
+      boolean removed = performRemoveView(key);
+      if (removed && start != 0) {
+        recordMetric(key, NativeViewMetrics.DISPOSE, System.nanoTime() - start);
+      }
+      if (removed && wasAttached) {
+        sendEvent("disposed", key, null);
+      }
+      return removed;
+    } finally {
+      Trace.endSection();
+    }
+  }
+
+  void addMetricsListener(@NonNull NativeViewMetrics.Listener listener) {
+    metricsListeners.add(listener);
+  }
+
+  void removeMetricsListener(@NonNull NativeViewMetrics.Listener listener) {
+    metricsListeners.remove(listener);
+  }
+
+  /** Returns the timings collected for {@code key}, or null if none were recorded. */
+  @Nullable
+  NativeViewMetrics getViewMetrics(@NonNull String key) {
+    return viewMetrics.get(key);
+  }
+
+  /** Gives an attached view its key-scoped binary message channel. */
+  private void attachMessenger(@NonNull String key, @NonNull NativeView nativeView) {
+    if (cachedFlutterEngine != null && messageTaskQueue != null) {
+      nativeView.attachMessenger(
+          cachedFlutterEngine.getDartExecutor().getBinaryMessenger(),
+          CHANNEL_NAME + "/view/" + key,
+          messageTaskQueue);
+    }
+  }
+
+  /** Pushes a lifecycle event to Dart; does nothing while nobody listens. */
+  private void sendEvent(@NonNull String type, @NonNull String key, @Nullable String message) {
+    EventChannel.EventSink sink = eventSink;
+    if (sink == null) {
+      return;
+    }
+    Map<String, Object> event = new HashMap<>();
+    event.put("type", type);
+    event.put("viewKey", key);
+    if (message != null) {
+      event.put("message", message);
+    }
+    sink.success(event);
+  }
+
+  private boolean isMetricsEnabled() {
+    return dartMetricsEnabled || !metricsListeners.isEmpty();
+  }
+
+  private void recordMetric(@NonNull String key, int metric, long durationNanos) {
+    NativeViewMetrics metrics = viewMetrics.get(key);
+    if (metrics == null) {
+      metrics = new NativeViewMetrics();
+      viewMetrics.put(key, metrics);
+    }
+    metrics.record(metric, durationNanos);
+    for (int i = 0; i < metricsListeners.size(); i++) {
+      metricsListeners.get(i).onMetric(key, metric, durationNanos);
+    }
+  }
+
+  /**
+   * Reports the first draw pass with {@code key} shown: as a {@code firstFrame} event, and as
+   * {@link NativeViewMetrics#FIRST_DRAW} if {@code startNanos} is non-zero.
+   */
+  private void awaitFirstDraw(@NonNull String key, long startNanos) {
+    firstDrawStarts.put(key, startNanos);
+    NativeView nativeView = nativeViews.get(key);
+    if (nativeView != null && nativeView.isVisible()) {
+      addFirstDrawListener();
+    }
+  }
+
+  /**
+   * Stops waiting for the first draw of {@code key}, which was hidden or removed before it was
+   * drawn. A hidden view reports no {@code firstFrame} when it is shown again.
+   */
+  private void cancelFirstDraw(@NonNull String key) {
+    if (firstDrawStarts.remove(key) != null) {
+      removeFirstDrawListener();
+    }
+  }
+
+  private void addFirstDrawListener() {
+    if (firstDrawListener == null && nativeViewContainer != null) {
+      firstDrawListener = this::onDrawPass;
+      nativeViewContainer.getViewTreeObserver().addOnDrawListener(firstDrawListener);
+    }
+  }
+
+  private void onDrawPass() {
+    long now = System.nanoTime();
+    Iterator<Map.Entry<String, Long>> iterator = firstDrawStarts.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, Long> entry = iterator.next();
+      NativeView nativeView = nativeViews.get(entry.getKey());
+      View view = nativeView != null ? nativeView.getView() : null;
+      if (view == null) {
+        iterator.remove();
+      } else if (view.isShown()) {
+        iterator.remove();
+        drawnKeys.add(entry.getKey());
+        long start = entry.getValue();
+        if (start != 0) {
+          recordMetric(entry.getKey(), NativeViewMetrics.FIRST_DRAW, now - start);
+        }
+      }
+    }
+    // Sent after the walk, as listeners on the Dart side may add views in response.
+    for (int i = 0; i < drawnKeys.size(); i++) {
+      sendEvent("firstFrame", drawnKeys.get(i), null);
+    }
+    drawnKeys.clear();
+    if (!isAwaitingShownView()) {
+      // Draw listeners cannot be removed while the tree is dispatching them.
+      mainHandler.post(this::removeFirstDrawListener);
+    }
+  }
+
+  /**
+   * Whether a view awaiting its first draw is shown. Views added but not yet shown cannot draw, so
+   * they do not keep the draw listener installed; {@link #performShowView} installs it again.
+   */
+  private boolean isAwaitingShownView() {
+    for (String key : firstDrawStarts.keySet()) {
+      NativeView nativeView = nativeViews.get(key);
+      if (nativeView != null && nativeView.isVisible()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Number of added views whose first draw has not been seen yet. */
+  int getAwaitedFirstDrawCount() {
+    return firstDrawStarts.size();
+  }
+
+  private void removeFirstDrawListener() {
+    if (firstDrawListener == null || isAwaitingShownView()) {
+      return;
+    }
+    if (nativeViewContainer != null) {
+      ViewTreeObserver observer = nativeViewContainer.getViewTreeObserver();
+      if (observer.isAlive()) {
+        observer.removeOnDrawListener(firstDrawListener);
+      }
+    }
+    firstDrawListener = null;
+  }
+
+  private boolean performShowView(@NonNull String key) {
     NativeView view = nativeViews.get(key);
+    if (view == null && evictedKeys.remove(key) && addView(key)) {
+      view = nativeViews.get(key);
+    }
     if (view == null) {
       return false;
     }
     view.show();
+    View contentView = view.getView();
+    if (contentView != null && nativeViewContainer != null) {
+      nativeViewContainer.bringChildToFront(contentView);
+    }
+    showOrder.remove(key);
+    showOrder.add(key);
     activeViewKey = key;
-    host.updateGestureHandlerTarget(view);
+    updateGestureHandlerTarget(view);
+    if (firstDrawStarts.containsKey(key)) {
+      addFirstDrawListener();
+    }
     return true;
   }
 
-  boolean hideView(@NonNull String key) {
+  private boolean performHideView(@NonNull String key) {
     NativeView view = nativeViews.get(key);
     if (view == null) {
       return false;
     }
     view.hide();
+    cancelFirstDraw(key);
     if (key.equals(activeViewKey)) {
       activateTopmostVisibleView();
+    } else {
+      updateGestureHandlerTarget(getActiveNativeView());
     }
+    trimHiddenViews(null);
     return true;
   }
 
+  /**
+   * Limits how many hidden views are kept alive. When either limit is exceeded, the least recently
+   * shown hidden views are disposed and Dart is notified with {@code onViewEvicted}; a later {@link
+   * #showView} re-adds an evicted view transparently.
+   *
+   * @param maxHiddenViews maximum number of hidden views, or {@link Integer#MAX_VALUE} for no limit
+   * @param maxHiddenBytes maximum sum of {@link NativeView#getEstimatedMemoryBytes()} over hidden
+   *     views, or {@link Long#MAX_VALUE} for no limit
+   */
+  void setHiddenViewCachePolicy(int maxHiddenViews, long maxHiddenBytes) {
+    this.maxHiddenViews = Math.max(maxHiddenViews, 0);
+    this.maxHiddenBytes = Math.max(maxHiddenBytes, 0);
+    trimHiddenViews(null);
+  }
+
+  private void trimHiddenViews(@Nullable String keepKey) {
+    if (maxHiddenViews == Integer.MAX_VALUE && maxHiddenBytes == Long.MAX_VALUE) {
+      return;
+    }
+
+    int hiddenCount = 0;
+    long hiddenBytes = 0;
+    for (NativeView view : nativeViews.values()) {
+      if (!view.isVisible()) {
+        hiddenCount++;
+        hiddenBytes += view.getEstimatedMemoryBytes();
+      }
+    }
+
+    Iterator<String> iterator = showOrder.iterator();
+    while ((hiddenCount > maxHiddenViews || hiddenBytes > maxHiddenBytes) && iterator.hasNext()) {
+      String key = iterator.next();
+      NativeView view = nativeViews.get(key);
+      if (view == null || view.isVisible() || key.equals(keepKey)) {
+        continue;
+      }
+      hiddenCount--;
+      hiddenBytes -= view.getEstimatedMemoryBytes();
+      iterator.remove();
+      evictView(key, view);
+    }
+  }
+
+  /** Disposes a hidden view and remembers its key so it can be re-added on the next show. */
+  private void evictView(@NonNull String key, @NonNull NativeView nativeView) {
+    releaseSnapshot(key);
+    boolean wasVisible = nativeView.isVisible();
+    nativeViews.remove(key);
+    View view = nativeView.getView();
+    if (view != null && nativeViewContainer != null) {
+      nativeViewContainer.removeNativeView(view);
+      viewKeys.remove(view);
+      if (occludedViews.remove(view)) {
+        view.setVisibility(View.VISIBLE);
+      }
+    }
+    nativeView.dispose();
+    cancelFirstDraw(key);
+    evictedKeys.add(key);
+
+    if (key.equals(activeViewKey)) {
+      activateTopmostVisibleView();
+    } else if (wasVisible) {
+      updateGestureHandlerTarget(getActiveNativeView());
+    }
+
+    if (methodChannel != null) {
+      Map<String, Object> arguments = new HashMap<>();
+      arguments.put("viewKey", key);
+      methodChannel.invokeMethod("onViewEvicted", arguments);
+    }
+    sendEvent("evicted", key, null);
+  }
+
   private void activateTopmostVisibleView() {
     if (nativeViewContainer == null) {
       activeViewKey = null;
-      host.updateGestureHandlerTarget(null);
+      updateGestureHandlerTarget(null);
       return;
     }
 
-    for (int i = nativeViewContainer.getChildCount() - 1; i >= 0; i--) {
-      View child = nativeViewContainer.getChildAt(i);
-      if (child.getVisibility() == View.VISIBLE) {
-        for (Map.Entry<String, NativeView> entry : nativeViews.entrySet()) {
-          if (entry.getValue().getView() == child) {
-            activeViewKey = entry.getKey();
-            host.updateGestureHandlerTarget(entry.getValue());
-            return;
-          }
-        }
+    // A covered view counts as visible, so the walk usually stops at the view just below.
+    for (View child = nativeViewContainer.getTopView();
+        child != null;
+        child = nativeViewContainer.getViewBelow(child)) {
+      String key = viewKeys.get(child);
+      int visibility = child.getVisibility();
+      if (key != null
+          && (visibility == View.VISIBLE
+              || (visibility == View.INVISIBLE && occludedViews.contains(child)))) {
+        activeViewKey = key;
+        updateGestureHandlerTarget(nativeViews.get(key));
+        return;
       }
     }
 
     activeViewKey = null;
-    host.updateGestureHandlerTarget(null);
+    updateGestureHandlerTarget(null);
+  }
+
+  /** Recomputes occlusion after a visibility or order change, then retargets touch input. */
+  private void updateGestureHandlerTarget(@Nullable NativeView nativeView) {
+    if (inTransaction) {
+      gestureTargetChanged = true;
+    } else {
+      updateOcclusion();
+      host.updateGestureHandlerTarget(nativeView);
+    }
+  }
+
+  /**
+   * Skips drawing of native views that are fully covered by an opaque view above them, and takes
+   * the container out of the draw pass when no native view is drawn.
+   *
+   * <p>Covered views are made {@link View#INVISIBLE} without changing their {@link
+   * NativeView#isVisible()} state, and made visible again as soon as they are uncovered.
+   *
+   * <p>Whether a view is covered depends on every view above it, so this walks the whole stack
+   * once: showing, hiding or removing a view costs O(n) in the number of native views. The same
+   * walk collects {@link #drawnViews} for the gesture handler, and nothing is allocated.
+   *
+   * @return whether any view or the container changed visibility
+   */
+  private boolean updateOcclusion() {
+    drawnViews.clear();
+    if (nativeViewContainer == null) {
+      return false;
+    }
+    int containerWidth = nativeViewContainer.getWidth();
+    int containerHeight = nativeViewContainer.getHeight();
+    boolean changed = false;
+    boolean covered = false;
+    for (View child = nativeViewContainer.getTopView();
+        child != null;
+        child = nativeViewContainer.getViewBelow(child)) {
+      int visibility = child.getVisibility();
+      if (visibility == View.GONE) {
+        occludedViews.remove(child);
+        continue;
+      }
+      if (visibility == View.INVISIBLE && !occludedViews.contains(child)) {
+        // Made invisible by the view itself; leave it alone.
+        continue;
+      }
+      if (covered) {
+        if (occludedViews.add(child)) {
+          child.setVisibility(View.INVISIBLE);
+          occlusionCullCount++;
+          changed = true;
+        }
+        continue;
+      }
+      if (occludedViews.remove(child)) {
+        child.setVisibility(View.VISIBLE);
+        changed = true;
+      }
+      drawnViews.add(child);
+      covered = child.isOpaque() && coversContainer(child, containerWidth, containerHeight);
+    }
+    int containerVisibility = !drawnViews.isEmpty() ? View.VISIBLE : View.GONE;
+    if (nativeViewContainer.getVisibility() != containerVisibility) {
+      nativeViewContainer.setVisibility(containerVisibility);
+      changed = true;
+    }
+    return changed;
+  }
+
+  private static boolean coversContainer(@NonNull View view, int width, int height) {
+    if (width == 0 || height == 0) {
+      // Not laid out yet; nothing can be proven covered.
+      return false;
+    }
+    ViewGroup.LayoutParams layoutParams = view.getLayoutParams();
+    int viewWidth = view.getWidth();
+    int viewHeight = view.getHeight();
+    if (layoutParams != null) {
+      viewWidth = resolveSize(layoutParams.width, width, viewWidth);
+      viewHeight = resolveSize(layoutParams.height, height, viewHeight);
+    }
+    float left = view.getLeft() + view.getTranslationX();
+    float top = view.getTop() + view.getTranslationY();
+    return left <= 0 && top <= 0 && left + viewWidth >= width && top + viewHeight >= height;
+  }
+
+  /** Resolves a layout param size ahead of the next layout pass where possible. */
+  private static int resolveSize(int layoutSize, int parentSize, int measuredSize) {
+    if (layoutSize >= 0) {
+      return layoutSize;
+    }
+    return layoutSize == ViewGroup.LayoutParams.MATCH_PARENT ? parentSize : measuredSize;
+  }
+
+  /** Number of native views currently drawn, i.e. visible and not covered. */
+  int getDrawnViewCount() {
+    return drawnViews.size();
+  }
+
+  /** Number of native views currently skipped because an opaque view fully covers them. */
+  int getOccludedViewCount() {
+    return occludedViews.size();
+  }
+
+  /** Total number of times a native view has been culled since the delegate was created. */
+  int getOcclusionCullCount() {
+    return occlusionCullCount;
+  }
+
+  /** Whether the native view container currently takes part in drawing. */
+  boolean isNativeViewContainerDrawn() {
+    return nativeViewContainer != null && nativeViewContainer.getVisibility() == View.VISIBLE;
+  }
+
+  /**
+   * Applies an ordered list of operations in a single main-thread pass and returns the result of
+   * each one.
+   *
+   * <p>Each operation is a map with an {@code op} of {@code add}, {@code show}, {@code hide} or
+   * {@code remove} and a {@code viewKey}. The whole list is validated before anything is applied,
+   * and the gesture handler target is updated once at the end rather than after every step.
+   *
+   * @throws IllegalArgumentException if any operation is malformed; nothing is applied then
+   */
+  @NonNull
+  List<Boolean> applyTransaction(@NonNull List<Map<String, Object>> operations) {
+    validateTransaction(operations);
+
+    List<Boolean> results = new ArrayList<>(operations.size());
+    inTransaction = true;
+    try {
+      for (Map<String, Object> operation : operations) {
+        String key = (String) operation.get("viewKey");
+        switch ((String) operation.get("op")) {
+          case "add":
+            results.add(addView(key));
+            break;
+          case "show":
+            results.add(showView(key));
+            break;
+          case "hide":
+            results.add(hideView(key));
+            break;
+          default:
+            results.add(removeView(key));
+            break;
+        }
+      }
+    } finally {
+      inTransaction = false;
+      if (gestureTargetChanged) {
+        gestureTargetChanged = false;
+        updateGestureHandlerTarget(getActiveNativeView());
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Positions and sizes a native view to match its Flutter widget, in physical pixels relative to
+   * the native view container. Until bounds are reported, views fill the container.
+   *
+   * <p>Position changes only update the view's translation; a layout pass is requested only when
+   * the size changes.
+   */
+  void setViewBounds(@NonNull String key, int left, int top, int width, int height) {
+    int[] bounds = viewBounds.get(key);
+    if (bounds == null) {
+      bounds = new int[4];
+      viewBounds.put(key, bounds);
+    }
+    bounds[0] = left;
+    bounds[1] = top;
+    bounds[2] = width;
+    bounds[3] = height;
+
+    NativeView nativeView = nativeViews.get(key);
+    View view = nativeView != null ? nativeView.getView() : null;
+    if (view != null) {
+      applyViewBounds(view, bounds);
+      if (!inTransaction && updateOcclusion()) {
+        host.updateGestureHandlerTarget(getActiveNativeView());
+      }
+    }
+  }
+
+  private static void applyViewBounds(@NonNull View view, @NonNull int[] bounds) {
+    ViewGroup.LayoutParams layoutParams = view.getLayoutParams();
+    if (layoutParams != null
+        && (layoutParams.width != bounds[2] || layoutParams.height != bounds[3])) {
+      layoutParams.width = bounds[2];
+      layoutParams.height = bounds[3];
+      view.setLayoutParams(layoutParams);
+    }
+    view.setTranslationX(bounds[0]);
+    view.setTranslationY(bounds[1]);
+  }
+
+  /**
+   * Captures the current content of a view into a Flutter texture and parks the live view, so Dart
+   * can show and animate the texture during a route transition.
+   *
+   * <p>The parked view is made {@link View#INVISIBLE} and stops receiving touches until {@link
+   * #releaseSnapshot} swaps it back in. Any previous snapshot of the same view is released first.
+   *
+   * @return the snapshot, or null if the view does not exist or has not been laid out
+   */
+  @Nullable
+  NativeViewSnapshot captureSnapshot(@NonNull String key) {
+    NativeView nativeView = nativeViews.get(key);
+    View view = nativeView != null ? nativeView.getView() : null;
+    if (view == null || cachedFlutterEngine == null) {
+      return null;
+    }
+    releaseSnapshot(key);
+
+    NativeViewSnapshot snapshot =
+        NativeViewSnapshot.capture(view, cachedFlutterEngine.getRenderer());
+    if (snapshot == null) {
+      return null;
+    }
+    snapshots.put(key, snapshot);
+    snapshotCount++;
+    totalSnapshotCaptureNanos += snapshot.getCaptureNanos();
+
+    if (view.getVisibility() == View.VISIBLE) {
+      view.setVisibility(View.INVISIBLE);
+      parkedViews.add(view);
+      updateGestureHandlerTarget(getActiveNativeView());
+    }
+    return snapshot;
+  }
+
+  /** Releases the snapshot texture of a view and swaps the live view back in. */
+  boolean releaseSnapshot(@NonNull String key) {
+    NativeViewSnapshot snapshot = snapshots.remove(key);
+    if (snapshot == null) {
+      return false;
+    }
+    snapshot.release();
+
+    NativeView nativeView = nativeViews.get(key);
+    View view = nativeView != null ? nativeView.getView() : null;
+    if (view != null && parkedViews.remove(view) && view.getVisibility() == View.INVISIBLE) {
+      view.setVisibility(View.VISIBLE);
+      updateGestureHandlerTarget(getActiveNativeView());
+    }
+    return true;
+  }
+
+  /** Number of snapshots captured, their total capture time and the memory of live textures. */
+  @NonNull
+  Map<String, Object> getSnapshotStats() {
+    long textureBytes = 0;
+    for (NativeViewSnapshot snapshot : snapshots.values()) {
+      textureBytes += snapshot.getTextureBytes();
+    }
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("captureCount", snapshotCount);
+    stats.put("totalCaptureMicros", totalSnapshotCaptureNanos / 1000);
+    stats.put("liveTextureCount", snapshots.size());
+    stats.put("liveTextureBytes", textureBytes);
+    return stats;
   }
 
+  private void releaseAllSnapshots() {
+    for (NativeViewSnapshot snapshot : snapshots.values()) {
+      snapshot.release();
+    }
+    snapshots.clear();
+    for (View view : parkedViews) {
+      if (view.getVisibility() == View.INVISIBLE) {
+        view.setVisibility(View.VISIBLE);
+      }
+    }
+    parkedViews.clear();
+  }
+
+  private static void validateTransaction(@NonNull List<Map<String, Object>> operations) {
+    for (Map<String, Object> operation : operations) {
+      Object op = operation.get("op");
+      if (!(operation.get("viewKey") instanceof String)
+          || !("add".equals(op) || "show".equals(op) || "hide".equals(op) || "remove".equals(op))) {
+        throw new IllegalArgumentException("Invalid operation: " + operation);
+      }
+    }
+  }
+
+  /**
+   * Routes touches to every visible native view, topmost first, so views shown side by side each
+   * receive the pointers that go down on them. {@code nativeView} is the active view; when it is
+   * null no view receives touches.
+   */
   void defaultUpdateGestureHandlerTarget(@Nullable NativeView nativeView) {
-    if (gestureHandler != null) {
-      gestureHandler.setTargetView(nativeView != null ? nativeView.getView() : null);
+    if (gestureHandler == null) {
+      return;
+    }
+    if (nativeView == null) {
+      gestureHandler.setTargetView(null);
+      return;
     }
+    // Collected by the occlusion walk that precedes every target update.
+    gestureHandler.setTargetViews(drawnViews);
   }
 
+
   boolean hasView(@NonNull String key) {
     return nativeViews.containsKey(key);
   }
@@ -135,27 +905,50 @@ class NativeViewDelegate implements MethodChannel.MethodCallHandler {
     return viewFactories.containsKey(key);
   }
 
-  boolean addView(@NonNull String key) {
+  private boolean performAddView(@NonNull String key) {
     if (nativeViews.containsKey(key)) {
       return true;
     }
 
-    Supplier<NativeView> factory = viewFactories.get(key);
-    if (factory == null) {
-      return false;
-    }
-
     if (cachedFlutterEngine == null || nativeViewContainer == null) {
       return false;
     }
 
-    NativeView nativeView = factory.get();
-    if (nativeView == null) {
+    if (failedPreparations.remove(key)) {
       return false;
     }
 
-    Activity activity = host.getActivity();
-    nativeView.initialize(key, activity, cachedFlutterEngine, host::getHostLifecycle);
+    NativeView nativeView = takeRecycledView(key);
+    if (nativeView != null) {
+      nativeView.setCreationParams(creationParams.get(key));
+      nativeView.reuse();
+    } else if ((nativeView = prewarmedViews.remove(key)) != null) {
+      nativeView.setCreationParams(creationParams.get(key));
+      prewarmHitCount++;
+    } else if ((nativeView = preparedViews.remove(key)) != null) {
+      // Built ahead of the add by prepareViewsAsync; a prewarm still queued for it came too late.
+      if (pendingPrewarmKeys.remove(key)) {
+        prewarmMissCount++;
+      }
+      if (!nativeView.isInitialized()) {
+        // The view does not prepare in the background, so it is only created now.
+        Context context = nativeView.getContext();
+        nativeView.initialize(
+            key, context != null ? context : createViewContext(), cachedFlutterEngine);
+        if (nativeView.getView() == null) {
+          nativeView.dispose();
+          return false;
+        }
+      }
+    } else {
+      if (pendingPrewarmKeys.remove(key)) {
+        prewarmMissCount++;
+      }
+      nativeView = createNativeView(key);
+      if (nativeView == null) {
+        return false;
+      }
+    }
 
     View view = nativeView.getView();
     if (view == null) {
@@ -165,38 +958,522 @@ class NativeViewDelegate implements MethodChannel.MethodCallHandler {
     view.setLayoutParams(
         new FrameLayout.LayoutParams(
             FrameLayout.LayoutParams.MATCH_PARENT, FrameLayout.LayoutParams.MATCH_PARENT));
+    view.setTranslationX(0);
+    view.setTranslationY(0);
+    int[] bounds = viewBounds.get(key);
+    if (bounds != null) {
+      applyViewBounds(view, bounds);
+    }
 
-    nativeViewContainer.addView(view);
+    nativeViewContainer.addNativeView(view);
+    viewKeys.put(view, key);
     nativeViews.put(key, nativeView);
+    attachMessenger(key, nativeView);
+    showOrder.add(key);
+    evictedKeys.remove(key);
     nativeView.notifyViewCreated();
+    Map<String, Object> properties = viewProperties.get(key);
+    if (properties != null && !properties.isEmpty()) {
+      nativeView.notifyPropertiesChanged(new HashMap<>(properties));
+    }
     nativeView.hide();
+    nativeView.setHostState(hostState);
+    trimHiddenViews(key);
+    updateGestureHandlerTarget(getActiveNativeView());
 
     return true;
   }
 
-  boolean removeView(@NonNull String key) {
-    NativeView nativeView = nativeViews.remove(key);
+  /** Records the creation params of a view that has not been added yet. */
+  @SuppressWarnings("unchecked")
+  private void setCreationParams(@NonNull String key, @Nullable Object params) {
+    if (params instanceof Map && !nativeViews.containsKey(key)) {
+      creationParams.put(key, (Map<String, Object>) params);
+    }
+  }
+
+  /**
+   * Merges {@code changes} into the properties of {@code key} and passes them to the view if it is
+   * attached; otherwise they are delivered when it is. A null value removes a property.
+   */
+  void updateViewProperties(@NonNull String key, @NonNull Map<String, Object> changes) {
+    if (changes.isEmpty()) {
+      return;
+    }
+    Map<String, Object> properties = viewProperties.get(key);
+    if (properties == null) {
+      properties = new HashMap<>();
+      viewProperties.put(key, properties);
+    }
+    for (Map.Entry<String, Object> change : changes.entrySet()) {
+      if (change.getValue() != null) {
+        properties.put(change.getKey(), change.getValue());
+      } else {
+        properties.remove(change.getKey());
+      }
+    }
+    NativeView nativeView = nativeViews.get(key);
+    if (nativeView != null) {
+      nativeView.notifyPropertiesChanged(changes);
+    }
+  }
+
+  /**
+   * Adds a view, running {@link NativeView#onPrepare()} on a background thread first if the view
+   * opts into it. {@code onComplete} receives the result of the add on the main thread.
+   */
+  void addViewAsync(@NonNull String key, @NonNull Consumer<Boolean> onComplete) {
+    enqueueCall(
+        Collections.singletonList(key),
+        () -> addView(key),
+        new MethodChannel.Result() {
+          @Override
+          public void success(@Nullable Object result) {
+            onComplete.accept(Boolean.TRUE.equals(result));
+          }
+
+          @Override
+          public void error(
+              @NonNull String errorCode, @Nullable String errorMessage, @Nullable Object details) {
+            onComplete.accept(false);
+          }
+
+          @Override
+          public void notImplemented() {
+            onComplete.accept(false);
+          }
+        });
+  }
+
+  /**
+   * Applies a view-changing call once the views in {@code addKeys} are prepared and every earlier
+   * call has been applied, then replies with the value of {@code apply}.
+   */
+  private void enqueueCall(
+      @NonNull Collection<String> addKeys,
+      @NonNull Supplier<Object> apply,
+      @NonNull MethodChannel.Result result) {
+    if (queuedCalls.isEmpty() && addKeys.isEmpty()) {
+      result.success(apply.get());
+      return;
+    }
+    queuedCalls.add(new QueuedCall(addKeys, apply, result));
+    if (queuedCalls.size() == 1) {
+      runQueuedCalls();
+    }
+  }
+
+  private void runQueuedCalls() {
+    QueuedCall call = queuedCalls.peek();
+    if (call == null) {
+      return;
+    }
+    prepareViewsAsync(
+        call.addKeys,
+        () -> {
+          if (queuedCalls.peek() != call) {
+            // Already answered by onDestroy.
+            return;
+          }
+          queuedCalls.poll();
+          call.result.success(call.apply.get());
+          runQueuedCalls();
+        });
+  }
+
+  /**
+   * Prepares every view in {@code keys} that opts into background preparation, in parallel, then
+   * runs {@code onReady} on the main thread. Views that do not opt in are left for the add itself.
+   */
+  private void prepareViewsAsync(@NonNull Collection<String> keys, @NonNull Runnable onReady) {
+    int[] remaining = {1};
+    Runnable countDown =
+        () -> {
+          if (--remaining[0] == 0) {
+            onReady.run();
+          }
+        };
+
+    for (String key : keys) {
+      List<Runnable> waiting = pendingPreparations.get(key);
+      if (waiting != null) {
+        remaining[0]++;
+        waiting.add(countDown);
+        continue;
+      }
+      if (nativeViews.containsKey(key)
+          || preparedViews.containsKey(key)
+          || prewarmedViews.containsKey(key)
+          || recyclePools.containsKey(key)
+          || cachedFlutterEngine == null) {
+        continue;
+      }
+      Supplier<NativeView> factory = viewFactories.get(key);
+      NativeView nativeView = factory != null ? factory.get() : null;
+      if (nativeView == null) {
+        continue;
+      }
+
+      nativeView.setCreationParams(creationParams.get(key));
+      nativeView.bind(key, createViewContext(), cachedFlutterEngine);
+      if (!nativeView.prepareInBackground()) {
+        // Nothing to do off the main thread; the add creates its view.
+        preparedViews.put(key, nativeView);
+        continue;
+      }
+
+      waiting = new ArrayList<>();
+      waiting.add(countDown);
+      remaining[0]++;
+      pendingPreparations.put(key, waiting);
+      if (backgroundExecutor == null) {
+        backgroundExecutor =
+            Executors.newFixedThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors() - 1));
+      }
+      backgroundExecutor.execute(
+          () -> {
+            boolean prepared;
+            try {
+              nativeView.prepare();
+              prepared = true;
+            } catch (RuntimeException e) {
+              prepared = false;
+            }
+            boolean success = prepared;
+            mainHandler.post(() -> finishPreparation(key, nativeView, success));
+          });
+    }
+
+    countDown.run();
+  }
+
+  /** Creates the view of a prepared NativeView on main and releases everything waiting on it. */
+  private void finishPreparation(
+      @NonNull String key, @NonNull NativeView nativeView, boolean prepared) {
+    List<Runnable> waiting = pendingPreparations.remove(key);
+    if (prepared && cachedFlutterEngine != null) {
+      Context context = nativeView.getContext();
+      nativeView.initialize(
+          key, context != null ? context : createViewContext(), cachedFlutterEngine);
+      if (nativeView.getView() != null) {
+        preparedViews.put(key, nativeView);
+      } else {
+        nativeView.dispose();
+      }
+    } else {
+      nativeView.dispose();
+      failedPreparations.add(key);
+    }
+
+    if (waiting != null) {
+      for (Runnable runnable : waiting) {
+        runnable.run();
+      }
+    }
+    if (pendingRemovals.remove(key)) {
+      removeView(key);
+    }
+  }
+
+  /** Runs the factory for {@code key} and initializes the result, without attaching it. */
+  @Nullable
+  private NativeView createNativeView(@NonNull String key) {
+    Supplier<NativeView> factory = viewFactories.get(key);
+    if (factory == null || cachedFlutterEngine == null) {
+      return null;
+    }
+
+    NativeView nativeView = factory.get();
     if (nativeView == null) {
+      return null;
+    }
+
+    nativeView.setCreationParams(creationParams.get(key));
+    nativeView.initialize(key, createViewContext(), cachedFlutterEngine);
+    if (nativeView.getView() == null) {
+      nativeView.dispose();
+      return null;
+    }
+    return nativeView;
+  }
+
+  /**
+   * Returns the context handed to new views. With retention enabled it is a {@link
+   * MutableContextWrapper}, re-pointed at the new activity when views survive a recreation.
+   */
+  @NonNull
+  private Context createViewContext() {
+    Activity activity = host.getActivity();
+    return retainViewsAcrossConfigChanges ? new MutableContextWrapper(activity) : activity;
+  }
+
+  void setRetainViewsAcrossConfigChanges(boolean retain) {
+    retainViewsAcrossConfigChanges = retain;
+  }
+
+  /**
+   * Detaches every attached view for the next activity instance when retention is enabled. Called
+   * from {@code onRetainNonConfigurationInstance}, after {@code onStop} and before {@link
+   * #onDestroy}, which then disposes only the views that stayed behind.
+   *
+   * <p>Views created before retention was enabled hold this activity as their context and cannot
+   * be re-pointed, so they stay behind. Dart adds them again when it receives {@code onHostReset}.
+   */
+  @Nullable
+  Object onRetainNonConfigurationInstance() {
+    if (!retainViewsAcrossConfigChanges || nativeViews.isEmpty()) {
+      return null;
+    }
+    RetainedViews retained = new RetainedViews(activeViewKey);
+    // showOrder matches the z-order, bottom first.
+    for (String key : showOrder) {
+      NativeView nativeView = nativeViews.get(key);
+      if (nativeView == null || !(nativeView.getContext() instanceof MutableContextWrapper)) {
+        continue;
+      }
+      releaseSnapshot(key);
+      nativeView.detachMessenger();
+      View view = nativeView.getView();
+      if (view != null && nativeViewContainer != null) {
+        nativeViewContainer.removeNativeView(view);
+        viewKeys.remove(view);
+        if (occludedViews.remove(view)) {
+          view.setVisibility(View.VISIBLE);
+        }
+      }
+      retained.views.put(key, nativeView);
+      int[] bounds = viewBounds.get(key);
+      if (bounds != null) {
+        retained.viewBounds.put(key, bounds);
+      }
+    }
+    if (retained.views.isEmpty()) {
+      return null;
+    }
+    for (String key : retained.views.keySet()) {
+      nativeViews.remove(key);
+      showOrder.remove(key);
+    }
+    activeViewKey = null;
+    return retained;
+  }
+
+  /** Attaches views retained by the previous activity instance once container and engine exist. */
+  private void restoreRetainedViews() {
+    RetainedViews retained = pendingRetainedViews;
+    if (retained == null || nativeViewContainer == null || cachedFlutterEngine == null) {
+      return;
+    }
+    pendingRetainedViews = null;
+    Activity activity = host.getActivity();
+    for (Map.Entry<String, NativeView> entry : retained.views.entrySet()) {
+      String key = entry.getKey();
+      NativeView nativeView = entry.getValue();
+      View view = nativeView.getView();
+      if (view == null
+          || nativeViews.containsKey(key)
+          || !(nativeView.getContext() instanceof MutableContextWrapper wrapper)) {
+        // A view without a wrapper would keep the old activity; Dart adds it again.
+        nativeView.dispose();
+        continue;
+      }
+      wrapper.setBaseContext(activity);
+      nativeView.bind(key, wrapper, cachedFlutterEngine);
+
+      int[] bounds = retained.viewBounds.get(key);
+      if (bounds != null) {
+        viewBounds.put(key, bounds);
+      }
+      nativeViewContainer.addNativeView(view);
+      viewKeys.put(view, key);
+      nativeViews.put(key, nativeView);
+      attachMessenger(key, nativeView);
+      showOrder.add(key);
+      nativeView.setHostState(hostState);
+    }
+    if (retained.activeViewKey != null && nativeViews.containsKey(retained.activeViewKey)) {
+      activeViewKey = retained.activeViewKey;
+    }
+    updateGestureHandlerTarget(getActiveNativeView());
+  }
+
+  /**
+   * Schedules the given views to be built during main-thread idle time.
+   *
+   * <p>Prewarmed views are initialized but stay detached and hidden, so a later {@link #addView}
+   * only has to attach them.
+   */
+  void prewarmViews(@NonNull String... keys) {
+    for (String key : keys) {
+      if (viewFactories.containsKey(key)
+          && !nativeViews.containsKey(key)
+          && !prewarmedViews.containsKey(key)
+          && !recyclePools.containsKey(key)) {
+        pendingPrewarmKeys.add(key);
+      }
+    }
+    if (pendingPrewarmKeys.isEmpty() || prewarmIdleHandler != null) {
+      return;
+    }
+    prewarmIdleHandler = this::prewarmNextView;
+    Looper.myQueue().addIdleHandler(prewarmIdleHandler);
+  }
+
+  /** Builds one pending view per idle pass so a long prewarm list never blocks a frame. */
+  private boolean prewarmNextView() {
+    if (cachedFlutterEngine == null) {
+      // Keep waiting until the engine is configured.
+      return true;
+    }
+    Iterator<String> iterator = pendingPrewarmKeys.iterator();
+    if (iterator.hasNext()) {
+      String key = iterator.next();
+      iterator.remove();
+      if (!nativeViews.containsKey(key)
+          && !prewarmedViews.containsKey(key)
+          && !preparedViews.containsKey(key)
+          && !pendingPreparations.containsKey(key)) {
+        NativeView nativeView = createNativeView(key);
+        if (nativeView != null) {
+          View view = nativeView.getView();
+          if (view != null) {
+            view.setVisibility(View.GONE);
+          }
+          prewarmedViews.put(key, nativeView);
+        }
+      }
+    }
+    if (pendingPrewarmKeys.isEmpty()) {
+      prewarmIdleHandler = null;
       return false;
     }
+    return true;
+  }
+
+  /** Number of {@link #addView} calls that were served by a prewarmed view. */
+  int getPrewarmHitCount() {
+    return prewarmHitCount;
+  }
+
+  /** Number of {@link #addView} calls that arrived before their requested prewarm had run. */
+  int getPrewarmMissCount() {
+    return prewarmMissCount;
+  }
+
+  private boolean performRemoveView(@NonNull String key) {
+    if (pendingPreparations.containsKey(key)) {
+      // Keep the order Dart asked for: let the pending add finish, then remove.
+      pendingRemovals.add(key);
+      return true;
+    }
+    failedPreparations.remove(key);
+    cancelFirstDraw(key);
+    creationParams.remove(key);
+    viewProperties.remove(key);
+    NativeView preparedView = preparedViews.remove(key);
+    if (preparedView != null) {
+      preparedView.dispose();
+    }
+    releaseSnapshot(key);
+    viewBounds.remove(key);
+    NativeView nativeView = nativeViews.remove(key);
+    if (nativeView == null) {
+      return evictedKeys.remove(key);
+    }
+    showOrder.remove(key);
 
     boolean wasActive = key.equals(activeViewKey);
+    boolean wasVisible = nativeView.isVisible();
 
     View view = nativeView.getView();
     if (view != null && nativeViewContainer != null) {
-      nativeViewContainer.removeView(view);
+      nativeViewContainer.removeNativeView(view);
+      viewKeys.remove(view);
+      if (occludedViews.remove(view)) {
+        view.setVisibility(View.VISIBLE);
+      }
     }
 
-    nativeView.dispose();
+    if (!recycleView(key, nativeView)) {
+      nativeView.dispose();
+    }
 
     if (wasActive) {
       activateTopmostVisibleView();
+    } else if (wasVisible) {
+      updateGestureHandlerTarget(getActiveNativeView());
     }
 
     return true;
   }
 
-  void onCreate() {
+  /**
+   * Sets how many removed views of {@code key} are kept for reuse instead of being disposed. A size
+   * of zero disables pooling and disposes any views already pooled.
+   */
+  void setRecyclePoolSize(@NonNull String key, int maxSize) {
+    if (maxSize <= 0) {
+      recyclePoolSizes.remove(key);
+    } else {
+      recyclePoolSizes.put(key, maxSize);
+    }
+    ArrayDeque<NativeView> pool = recyclePools.get(key);
+    if (pool == null) {
+      return;
+    }
+    while (pool.size() > Math.max(maxSize, 0)) {
+      pool.removeFirst().dispose();
+    }
+    if (pool.isEmpty()) {
+      recyclePools.remove(key);
+    }
+  }
+
+  private boolean recycleView(@NonNull String key, @NonNull NativeView nativeView) {
+    Integer maxSize = recyclePoolSizes.get(key);
+    if (maxSize == null) {
+      return false;
+    }
+    ArrayDeque<NativeView> pool = recyclePools.get(key);
+    if (pool == null) {
+      pool = new ArrayDeque<>(maxSize);
+      recyclePools.put(key, pool);
+    }
+    if (pool.size() >= maxSize) {
+      return false;
+    }
+    nativeView.recycle();
+    pool.addLast(nativeView);
+    return true;
+  }
+
+  @Nullable
+  private NativeView takeRecycledView(@NonNull String key) {
+    ArrayDeque<NativeView> pool = recyclePools.get(key);
+    if (pool == null) {
+      return null;
+    }
+    NativeView nativeView = pool.pollLast();
+    if (pool.isEmpty()) {
+      recyclePools.remove(key);
+    }
+    return nativeView;
+  }
+
+  private void clearRecyclePools() {
+    for (ArrayDeque<NativeView> pool : recyclePools.values()) {
+      for (NativeView view : pool) {
+        view.dispose();
+      }
+    }
+    recyclePools.clear();
+  }
+
+  void onCreate(@Nullable Object lastNonConfigurationInstance) {
+    if (lastNonConfigurationInstance instanceof RetainedViews retained) {
+      pendingRetainedViews = retained;
+    }
     Activity activity = host.getActivity();
     View contentView = activity.findViewById(android.R.id.content);
     if (contentView instanceof ViewGroup contentParent) {
@@ -209,25 +1486,127 @@ class NativeViewDelegate implements MethodChannel.MethodCallHandler {
             new ViewGroup.LayoutParams(
                 ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
 
-        nativeViewContainer = new FrameLayout(activity);
+        nativeViewContainer = new NativeViewContainer(activity);
         nativeViewContainer.setLayoutParams(
             new FrameLayout.LayoutParams(
                 FrameLayout.LayoutParams.MATCH_PARENT, FrameLayout.LayoutParams.MATCH_PARENT));
 
+        // Occlusion can only be proven once sizes are known.
+        nativeViewContainer.addOnLayoutChangeListener(
+            (v, left, top, right, bottom, oldLeft, oldTop, oldRight, oldBottom) -> {
+              if ((right - left != oldRight - oldLeft || bottom - top != oldBottom - oldTop)
+                  && updateOcclusion()) {
+                host.updateGestureHandlerTarget(getActiveNativeView());
+              }
+            });
+
         viewWrapper.addView(nativeViewContainer);
         viewWrapper.addView(flutterView);
         contentParent.addView(viewWrapper);
       }
     }
+    restoreRetainedViews();
   }
 
   void configureFlutterEngine(@NonNull FlutterEngine flutterEngine) {
+    NativeViewPlugin plugin = NativeViewPlugin.of(flutterEngine);
+    if (flutterEngine == cachedFlutterEngine && plugin.boundDelegate == this) {
+      return;
+    }
+    releaseEngine();
+    // An engine seen before was kept alive, e.g. in FlutterEngineCache, and Dart still holds
+    // the view state of its previous host.
+    boolean reattached = plugin.hadHost;
+    NativeViewDelegate previous = plugin.boundDelegate;
+    if (previous != null) {
+      // Released while it still owns the channels, so it unregisters them and disposes its
+      // gesture handler before this delegate registers its own.
+      previous.releaseEngine();
+    }
+    plugin.boundDelegate = this;
+    plugin.hadHost = true;
+
+    enginePlugin = plugin;
     cachedFlutterEngine = flutterEngine;
     methodChannel =
         new MethodChannel(flutterEngine.getDartExecutor().getBinaryMessenger(), CHANNEL_NAME);
     methodChannel.setMethodCallHandler(this);
     gestureHandler =
         new NativeViewGestureHandler(flutterEngine.getDartExecutor().getBinaryMessenger());
+    eventChannel =
+        new EventChannel(
+            flutterEngine.getDartExecutor().getBinaryMessenger(), CHANNEL_NAME + "/events");
+    eventChannel.setStreamHandler(
+        new EventChannel.StreamHandler() {
+          @Override
+          public void onListen(Object arguments, EventChannel.EventSink events) {
+            eventSink = events;
+          }
+
+          @Override
+          public void onCancel(Object arguments) {
+            eventSink = null;
+          }
+        });
+    messageTaskQueue =
+        flutterEngine.getDartExecutor().getBinaryMessenger().makeBackgroundTaskQueue();
+    for (Map.Entry<String, NativeView> entry : nativeViews.entrySet()) {
+      attachMessenger(entry.getKey(), entry.getValue());
+    }
+    restoreRetainedViews();
+    if (reattached) {
+      methodChannel.invokeMethod("onHostReset", null);
+    }
+  }
+
+  void cleanUpFlutterEngine(@NonNull FlutterEngine flutterEngine) {
+    if (flutterEngine == cachedFlutterEngine) {
+      releaseEngine();
+    }
+  }
+
+  /**
+   * Detaches from the engine, which may outlive this host when cached. Channel handlers are only
+   * cleared while this delegate still owns them; a newer host on the same engine keeps its own.
+   */
+  private void releaseEngine() {
+    FlutterEngine flutterEngine = cachedFlutterEngine;
+    if (flutterEngine == null) {
+      return;
+    }
+    NativeViewPlugin plugin = enginePlugin;
+    boolean bound = plugin != null && plugin.boundDelegate == this;
+    if (bound) {
+      plugin.boundDelegate = null;
+    }
+    enginePlugin = null;
+    if (methodChannel != null) {
+      if (bound) {
+        methodChannel.setMethodCallHandler(null);
+      }
+      methodChannel = null;
+    }
+    if (gestureHandler != null) {
+      if (bound) {
+        gestureHandler.dispose();
+      }
+      gestureHandler = null;
+    }
+    if (eventChannel != null) {
+      if (bound) {
+        eventChannel.setStreamHandler(null);
+      }
+      eventChannel = null;
+    }
+    if (bound) {
+      for (NativeView view : nativeViews.values()) {
+        view.detachMessenger();
+      }
+    }
+    messageTaskQueue = null;
+    eventSink = null;
+    releaseAllSnapshots();
+    cachedFlutterEngine = null;
   }
 
   @Override
@@ -237,7 +1616,9 @@ class NativeViewDelegate implements MethodChannel.MethodCallHandler {
       case "addView":
         viewKey = call.argument("viewKey");
         if (viewKey != null) {
-          result.success(addView(viewKey));
+          setCreationParams(viewKey, call.argument("params"));
+          String addKey = viewKey;
+          enqueueCall(Collections.singletonList(addKey), () -> addView(addKey), result);
         } else {
           result.error("INVALID_ARGUMENT", "viewKey is required", null);
         }
@@ -245,7 +1626,8 @@ class NativeViewDelegate implements MethodChannel.MethodCallHandler {
       case "removeView":
         viewKey = call.argument("viewKey");
         if (viewKey != null) {
-          result.success(removeView(viewKey));
+          String removeKey = viewKey;
+          enqueueCall(Collections.emptyList(), () -> removeView(removeKey), result);
         } else {
           result.error("INVALID_ARGUMENT", "viewKey is required", null);
         }
@@ -253,7 +1635,8 @@ class NativeViewDelegate implements MethodChannel.MethodCallHandler {
       case "showView":
         viewKey = call.argument("viewKey");
         if (viewKey != null) {
-          result.success(showView(viewKey));
+          String showKey = viewKey;
+          enqueueCall(Collections.emptyList(), () -> showView(showKey), result);
         } else {
           result.error("INVALID_ARGUMENT", "viewKey is required", null);
         }
@@ -261,7 +1644,8 @@ class NativeViewDelegate implements MethodChannel.MethodCallHandler {
       case "hideView":
         viewKey = call.argument("viewKey");
         if (viewKey != null) {
-          result.success(hideView(viewKey));
+          String hideKey = viewKey;
+          enqueueCall(Collections.emptyList(), () -> hideView(hideKey), result);
         } else {
           result.error("INVALID_ARGUMENT", "viewKey is required", null);
         }
@@ -277,6 +1661,105 @@ class NativeViewDelegate implements MethodChannel.MethodCallHandler {
           result.error("INVALID_ARGUMENT", "viewKey is required", null);
         }
         break;
+      case "applyTransaction":
+        List<Map<String, Object>> operations = call.argument("operations");
+        if (operations == null) {
+          result.error("INVALID_ARGUMENT", "operations is required", null);
+          break;
+        }
+        try {
+          validateTransaction(operations);
+        } catch (IllegalArgumentException e) {
+          result.error("INVALID_ARGUMENT", e.getMessage(), null);
+          break;
+        }
+        List<String> addKeys = new ArrayList<>();
+        for (Map<String, Object> operation : operations) {
+          if ("add".equals(operation.get("op"))) {
+            String addKey = (String) operation.get("viewKey");
+            setCreationParams(addKey, operation.get("params"));
+            addKeys.add(addKey);
+          }
+        }
+        // Views that prepare in the background are built first, then the whole transaction
+        // is applied in one pass.
+        enqueueCall(addKeys, () -> applyTransaction(operations), result);
+        break;
+      case "updateProperties":
+        Map<String, Map<String, Object>> patches = call.argument("patches");
+        if (patches == null) {
+          result.error("INVALID_ARGUMENT", "patches is required", null);
+          break;
+        }
+        for (Map.Entry<String, Map<String, Object>> patch : patches.entrySet()) {
+          updateViewProperties(patch.getKey(), patch.getValue());
+        }
+        result.success(null);
+        break;
+      case "updateViewBounds":
+        List<String> boundsKeys = call.argument("viewKeys");
+        double[] bounds = call.argument("bounds");
+        if (boundsKeys == null || bounds == null || bounds.length != boundsKeys.size() * 4) {
+          result.error("INVALID_ARGUMENT", "viewKeys and matching bounds are required", null);
+          break;
+        }
+        for (int i = 0; i < boundsKeys.size(); i++) {
+          setViewBounds(
+              boundsKeys.get(i),
+              (int) Math.round(bounds[i * 4]),
+              (int) Math.round(bounds[i * 4 + 1]),
+              (int) Math.round(bounds[i * 4 + 2]),
+              (int) Math.round(bounds[i * 4 + 3]));
+        }
+        result.success(null);
+        break;
+      case "captureSnapshot":
+        viewKey = call.argument("viewKey");
+        if (viewKey != null) {
+          NativeViewSnapshot snapshot = captureSnapshot(viewKey);
+          result.success(snapshot != null ? snapshot.toMap() : null);
+        } else {
+          result.error("INVALID_ARGUMENT", "viewKey is required", null);
+        }
+        break;
+      case "releaseSnapshot":
+        viewKey = call.argument("viewKey");
+        if (viewKey != null) {
+          result.success(releaseSnapshot(viewKey));
+        } else {
+          result.error("INVALID_ARGUMENT", "viewKey is required", null);
+        }
+        break;
+      case "getSnapshotStats":
+        result.success(getSnapshotStats());
+        break;
+      case "prewarmViews":
+        List<String> viewKeys = call.argument("viewKeys");
+        if (viewKeys != null) {
+          prewarmViews(viewKeys.toArray(new String[0]));
+          result.success(null);
+        } else {
+          result.error("INVALID_ARGUMENT", "viewKeys is required", null);
+        }
+        break;
+      case "getPrewarmStats":
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", prewarmHitCount);
+        stats.put("misses", prewarmMissCount);
+        result.success(stats);
+        break;
+      case "setMetricsEnabled":
+        Boolean enabled = call.argument("enabled");
+        dartMetricsEnabled = enabled != null && enabled;
+        result.success(null);
+        break;
+      case "getViewMetrics":
+        Map<String, Object> metrics = new HashMap<>();
+        for (Map.Entry<String, NativeViewMetrics> entry : viewMetrics.entrySet()) {
+          metrics.put(entry.getKey(), entry.getValue().toMap());
+        }
+        result.success(metrics);
+        break;
       default:
         result.notImplemented();
         break;
@@ -290,42 +1773,79 @@ class NativeViewDelegate implements MethodChannel.MethodCallHandler {
   }
 
   void onStart() {
-    for (NativeView view : nativeViews.values()) {
-      view.onStart();
-    }
+    setHostState(Lifecycle.State.STARTED);
   }
 
   void onResume() {
-    for (NativeView view : nativeViews.values()) {
-      view.onResume();
-    }
+    setHostState(Lifecycle.State.RESUMED);
   }
 
   void onPause() {
-    for (NativeView view : nativeViews.values()) {
-      view.onPause();
-    }
+    setHostState(Lifecycle.State.STARTED);
   }
 
   void onStop() {
+    setHostState(Lifecycle.State.CREATED);
+  }
+
+  /** Each view combines the host state with its own visibility; hidden views stay stopped. */
+  private void setHostState(@NonNull Lifecycle.State state) {
+    hostState = state;
     for (NativeView view : nativeViews.values()) {
-      view.onStop();
+      view.setHostState(state);
     }
   }
 
   void onDestroy() {
-    if (methodChannel != null) {
-      methodChannel.setMethodCallHandler(null);
-      methodChannel = null;
+    if (pendingRetainedViews != null) {
+      for (NativeView view : pendingRetainedViews.views.values()) {
+        view.dispose();
+      }
+      pendingRetainedViews = null;
     }
-    if (gestureHandler != null) {
-      gestureHandler.dispose();
-      gestureHandler = null;
+    releaseEngine();
+    firstDrawStarts.clear();
+    removeFirstDrawListener();
+    mainHandler.removeCallbacksAndMessages(null);
+    if (backgroundExecutor != null) {
+      backgroundExecutor.shutdownNow();
+      backgroundExecutor = null;
+    }
+    // The engine may outlive this host; answer every waiting call so no Dart future hangs.
+    List<QueuedCall> unanswered = new ArrayList<>(queuedCalls);
+    queuedCalls.clear();
+    for (QueuedCall call : unanswered) {
+      call.result.error("destroyed", "The native view host was destroyed", null);
+    }
+    pendingPreparations.clear();
+    pendingRemovals.clear();
+    failedPreparations.clear();
+    creationParams.clear();
+    viewProperties.clear();
+    for (NativeView view : preparedViews.values()) {
+      view.dispose();
     }
+    preparedViews.clear();
+    if (prewarmIdleHandler != null) {
+      Looper.myQueue().removeIdleHandler(prewarmIdleHandler);
+      prewarmIdleHandler = null;
+    }
+    pendingPrewarmKeys.clear();
+    for (NativeView view : prewarmedViews.values()) {
+      view.dispose();
+    }
+    prewarmedViews.clear();
+    clearRecyclePools();
     for (NativeView view : nativeViews.values()) {
       view.dispose();
     }
     nativeViews.clear();
+    viewBounds.clear();
+    occludedViews.clear();
+    drawnViews.clear();
+    viewKeys.clear();
+    showOrder.clear();
+    evictedKeys.clear();
     activeViewKey = null;
   }
 
@@ -340,4 +1860,56 @@ class NativeViewDelegate implements MethodChannel.MethodCallHandler {
       view.onLowMemory();
     }
   }
+
+  /**
+   * Forwards the trim level to every view, then releases memory held by the delegate itself.
+   *
+   * <ul>
+   *   <li>UI hidden and any background level, or running low: drop prewarmed and pooled views.
+   *   <li>Running low, running critical, moderate and above: dispose all hidden views.
+   *   <li>Complete: dispose everything except the active view. Visible views are only disposed
+   *       here, when the app is in the background; while it runs the user may be looking at them.
+   * </ul>
+   *
+   * Disposed views are reported to Dart as evicted and re-added on their next show.
+   */
+  @SuppressWarnings("deprecation")
+  void onTrimMemory(int level) {
+    for (NativeView view : new ArrayList<>(nativeViews.values())) {
+      view.onTrimMemory(level);
+    }
+
+    boolean running = level < ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+    if (!running || level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+      for (NativeView view : prewarmedViews.values()) {
+        view.dispose();
+      }
+      prewarmedViews.clear();
+      clearRecyclePools();
+    }
+
+    if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE) {
+      evictViews(true);
+    } else if (level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+        || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL
+        || level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+      evictViews(false);
+    }
+  }
+
+  /** Evicts every hidden view, and every visible one except the active view if requested. */
+  private void evictViews(boolean includeVisible) {
+    Iterator<String> iterator = showOrder.iterator();
+    while (iterator.hasNext()) {
+      String key = iterator.next();
+      NativeView view = nativeViews.get(key);
+      if (view == null
+          || key.equals(activeViewKey)
+          || (view.isVisible() && !includeVisible)) {
+        continue;
+      }
+      iterator.remove();
+      evictView(key, view);
+    }
+  }
 }
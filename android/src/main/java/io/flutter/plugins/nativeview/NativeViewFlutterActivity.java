@@ -5,10 +5,12 @@ import android.os.Bundle;
 import android.view.MotionEvent;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.lifecycle.Lifecycle;
 import io.flutter.embedding.android.FlutterActivity;
 import io.flutter.embedding.android.TransparencyMode;
 import io.flutter.embedding.engine.FlutterEngine;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
@@ -26,11 +28,6 @@ public abstract class NativeViewFlutterActivity extends FlutterActivity
     return this;
   }
 
-  @Override
-  public Lifecycle getHostLifecycle() {
-    return getLifecycle();
-  }
-
   /** Register view factories. Called during onCreate. */
   protected abstract void onRegisterNativeViews();
 
@@ -40,6 +37,43 @@ public abstract class NativeViewFlutterActivity extends FlutterActivity
     delegate.registerNativeViewFactory(key, factory);
   }
 
+  /**
+   * Keeps attached views alive across activity recreation caused by a configuration change. The
+   * views are detached from the old activity and re-attached to the new one without running
+   * {@link NativeView#onCreateView()} again.
+   *
+   * <p>Views created while retention is enabled get a {@link android.content.MutableContextWrapper}
+   * as context, re-pointed at the new activity. Views created before are disposed with the old
+   * activity and added again from Dart. Call from {@link #onRegisterNativeViews()}.
+   */
+  protected final void setRetainViewsAcrossConfigChanges(boolean retain) {
+    delegate.setRetainViewsAcrossConfigChanges(retain);
+  }
+
+  /**
+   * Keeps up to {@code maxSize} removed views of {@code key} for reuse instead of disposing them.
+   *
+   * <p>A pooled view receives {@link NativeView#onRecycle()} when removed and {@link
+   * NativeView#onReuse()} when added again, skipping the factory and {@link
+   * NativeView#onCreateView()}. A size of zero (the default) disables pooling.
+   */
+  protected final void setRecyclePoolSize(@NonNull String key, int maxSize) {
+    delegate.setRecyclePoolSize(key, maxSize);
+  }
+
+  /**
+   * Bounds the number and estimated size of hidden native views kept alive.
+   *
+   * <p>When a limit is exceeded, the least recently shown hidden views are disposed and Dart is
+   * notified; showing an evicted view re-adds it transparently. Pass {@link Integer#MAX_VALUE} and
+   * {@link Long#MAX_VALUE} (the defaults) to disable a limit.
+   *
+   * @see NativeView#getEstimatedMemoryBytes()
+   */
+  protected final void setHiddenViewCachePolicy(int maxHiddenViews, long maxHiddenBytes) {
+    delegate.setHiddenViewCachePolicy(maxHiddenViews, maxHiddenBytes);
+  }
+
   @Nullable
   protected final NativeView getNativeView(@NonNull String key) {
     return delegate.getNativeView(key);
@@ -66,8 +100,9 @@ public abstract class NativeViewFlutterActivity extends FlutterActivity
   /**
    * Updates the gesture handler's target view.
    *
-   * <p>Subclasses can override this to customize which view receives touch events. By default, uses
-   * the native view's content view.
+   * <p>Subclasses can override this to customize which view receives touch events. By default,
+   * every visible native view receives the pointers that go down on it, topmost first; {@code
+   * nativeView} is the active view, or null when no view should receive touches.
    */
   @Override
   public void updateGestureHandlerTarget(@Nullable NativeView nativeView) {
@@ -86,15 +121,120 @@ public abstract class NativeViewFlutterActivity extends FlutterActivity
     return delegate.addView(key);
   }
 
+  /**
+   * Adds a view, running {@link NativeView#onPrepare()} on a background thread first if the view
+   * opts in through {@link NativeView#prepareInBackground()}. {@code onComplete} receives the
+   * result on the main thread.
+   */
+  public void addViewAsync(@NonNull String key, @NonNull Consumer<Boolean> onComplete) {
+    delegate.addViewAsync(key, onComplete);
+  }
+
+  /**
+   * Changes properties of a native view as if its Dart widget had, calling {@link
+   * NativeView#onPropertiesChanged}. A null value removes a property.
+   */
+  public void updateViewProperties(@NonNull String key, @NonNull Map<String, Object> changes) {
+    delegate.updateViewProperties(key, changes);
+  }
+
   public boolean removeView(@NonNull String key) {
     return delegate.removeView(key);
   }
 
+  /**
+   * Positions and sizes the native view for {@code key} in physical pixels relative to the native
+   * view container. Normally driven by the Dart widget's layout; views fill the container until
+   * bounds are set.
+   */
+  public void setViewBounds(@NonNull String key, int left, int top, int width, int height) {
+    delegate.setViewBounds(key, left, top, width, height);
+  }
+
+  /**
+   * Applies add/show/hide/remove operations in order within one main-thread pass.
+   *
+   * <p>Each operation is a map with an {@code op} and a {@code viewKey}. Returns the result of each
+   * operation.
+   *
+   * @throws IllegalArgumentException if any operation is malformed; nothing is applied then
+   */
+  @NonNull
+  public List<Boolean> applyTransaction(@NonNull List<Map<String, Object>> operations) {
+    return delegate.applyTransaction(operations);
+  }
+
+  /**
+   * Builds the native view for {@code key} during main-thread idle time.
+   *
+   * <p>The view is initialized but kept detached and hidden, so a later {@link #addView} only has
+   * to attach it.
+   */
+  public void prewarmView(@NonNull String key) {
+    delegate.prewarmViews(key);
+  }
+
+  /** Prewarms several native views, one per main-thread idle pass. See {@link #prewarmView}. */
+  public void prewarmViews(@NonNull String... keys) {
+    delegate.prewarmViews(keys);
+  }
+
+  /** Returns the number of native views currently drawn, i.e. visible and not covered. */
+  public int getDrawnViewCount() {
+    return delegate.getDrawnViewCount();
+  }
+
+  /**
+   * Returns the number of native views currently skipped from drawing because an opaque native
+   * view above them covers the whole container.
+   */
+  public int getOccludedViewCount() {
+    return delegate.getOccludedViewCount();
+  }
+
+  /** Returns how many times a native view has been culled because it was fully covered. */
+  public int getOcclusionCullCount() {
+    return delegate.getOcclusionCullCount();
+  }
+
+  /** Returns whether the native view container takes part in drawing; false when none is shown. */
+  public boolean isNativeViewContainerDrawn() {
+    return delegate.isNativeViewContainerDrawn();
+  }
+
+  /** Returns how many {@link #addView} calls were served by a prewarmed view. */
+  public int getPrewarmHitCount() {
+    return delegate.getPrewarmHitCount();
+  }
+
+  /** Returns how many {@link #addView} calls arrived before their prewarm had run. */
+  public int getPrewarmMissCount() {
+    return delegate.getPrewarmMissCount();
+  }
+
+  /**
+   * Registers a listener for view lifecycle timings. Timings are only measured while a listener is
+   * registered or Dart has enabled metrics; {@code android.os.Trace} sections are always emitted.
+   */
+  public void addMetricsListener(@NonNull NativeViewMetrics.Listener listener) {
+    delegate.addMetricsListener(listener);
+  }
+
+  public void removeMetricsListener(@NonNull NativeViewMetrics.Listener listener) {
+    delegate.removeMetricsListener(listener);
+  }
+
+  /** Returns the timings collected for {@code key}, or null if none were recorded. */
+  @Nullable
+  public NativeViewMetrics getViewMetrics(@NonNull String key) {
+    return delegate.getViewMetrics(key);
+  }
+
   @Override
   protected void onCreate(@Nullable Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
     onRegisterNativeViews();
-    delegate.onCreate();
+    delegate.onCreate(getLastNonConfigurationInstance());
   }
 
   @Override
@@ -103,6 +243,12 @@ public abstract class NativeViewFlutterActivity extends FlutterActivity
     delegate.configureFlutterEngine(flutterEngine);
   }
 
+  @Override
+  public void cleanUpFlutterEngine(@NonNull FlutterEngine flutterEngine) {
+    delegate.cleanUpFlutterEngine(flutterEngine);
+    super.cleanUpFlutterEngine(flutterEngine);
+  }
+
   @Nullable
   public NativeViewGestureHandler getGestureHandler() {
     return delegate.getGestureHandler();
@@ -150,6 +296,16 @@ public abstract class NativeViewFlutterActivity extends FlutterActivity
     super.onDestroy();
   }
 
+  /**
+   * Hands retained views to the next instance. Subclasses overriding this must return the result
+   * of {@code super.onRetainNonConfigurationInstance()} to keep retention working.
+   */
+  @Nullable
+  @Override
+  public Object onRetainNonConfigurationInstance() {
+    return delegate.onRetainNonConfigurationInstance();
+  }
+
   @Override
   protected void onSaveInstanceState(@NonNull Bundle outState) {
     super.onSaveInstanceState(outState);
@@ -161,4 +317,10 @@ public abstract class NativeViewFlutterActivity extends FlutterActivity
     super.onLowMemory();
     delegate.onLowMemory();
   }
+
+  @Override
+  public void onTrimMemory(int level) {
+    super.onTrimMemory(level);
+    delegate.onTrimMemory(level);
+  }
 }
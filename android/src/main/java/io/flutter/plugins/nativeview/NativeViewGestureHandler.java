@@ -1,5 +1,7 @@
 package io.flutter.plugins.nativeview;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.view.MotionEvent;
 import android.view.View;
 import androidx.annotation.NonNull;
@@ -7,41 +9,217 @@ import androidx.annotation.Nullable;
 import io.flutter.plugin.common.BinaryMessenger;
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
-import java.util.HashSet;
+import io.flutter.plugin.common.StandardMethodCodec;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
-/** Handles gesture forwarding between Flutter and native views. */
+/**
+ * Handles gesture forwarding between Flutter and native views.
+ *
+ * <p>Gesture channel calls are handled on a background task queue, so a claim is visible to {@link
+ * #dispatchTouchEvent} as soon as it arrives, even while the main thread is busy dispatching. The
+ * state they share with the dispatch path is atomic; the work that touches views, such as sending
+ * the cancel event, runs on the main thread before the next dispatch at the latest.
+ */
 public class NativeViewGestureHandler implements MethodChannel.MethodCallHandler {
 
   private static final String CHANNEL_NAME =
       "plugins.flutter.dev/native_view_flutter_activity/gestures";
 
+  /** Maximum number of pointers a MotionEvent can carry; pointer IDs are below this value. */
+  private static final int MAX_POINTERS = 32;
+
+  /** Capacity of the hold-back buffer; a longer sequence is released early. */
+  private static final int MAX_HELD_EVENTS = 64;
+
+  /** Microseconds from {@link MotionEvent#getEventTime()} to dispatch to a native view. */
+  public static final int DISPATCH_DELAY = 0;
+
+  /** Microseconds from receiving a pointer's down event to the arrival of its claim. */
+  public static final int CLAIM_LATENCY = 1;
+
+  /** Number of events a native view received for a gesture before a claim cancelled it. */
+  public static final int EVENTS_BEFORE_CANCEL = 2;
+
+  private static final String[] HISTOGRAM_NAMES = {
+    "dispatchDelay", "claimLatency", "eventsBeforeCancel"
+  };
+
   private final MethodChannel channel;
 
-  /** The native view to forward touch events to. */
-  @Nullable private View targetView;
+  /** Visible native views that receive touch events, topmost first. */
+  private Target[] targets = new Target[0];
+
+  /** The target each active pointer went down on, indexed by pointer ID. */
+  private final Target[] pointerTargets = new Target[MAX_POINTERS];
 
   /** Whether touch events are dispatched to the native view. */
-  private boolean gesturesEnabled = true;
+  private volatile boolean gesturesEnabled = true;
+
+  /** Pointer IDs claimed by Flutter (not forwarded to native view), one bit per ID. */
+  private final AtomicInteger claimedPointerBits = new AtomicInteger();
+
+  /** Claims not yet applied on the main thread, one bit per pointer ID. */
+  private final AtomicInteger pendingClaimBits = new AtomicInteger();
+
+  /** Releases not yet applied on the main thread, one bit per pointer ID. */
+  private final AtomicInteger pendingReleaseBits = new AtomicInteger();
+
+  private final AtomicBoolean answersPosted = new AtomicBoolean();
+
+  /** Rectangles of interactive Flutter widgets; pointers going down inside them are claimed. */
+  @Nullable private volatile NativeViewHitRegions hitRegions;
+
+  /** Scratch buffers for building per-target events when pointers are split across views. */
+  @Nullable private MotionEvent.PointerProperties[] splitProperties;
+
+  @Nullable private MotionEvent.PointerCoords[] splitCoords;
+
+  /** How long a new touch sequence is held back while Flutter decides, or 0 if disabled. */
+  private volatile long holdBackMillis = 0;
+
+  /**
+   * Copies of the events held back, reused across gestures. The copies come from the {@link
+   * MotionEvent} pool and go back to it once flushed or dropped.
+   */
+  private final MotionEvent[] heldEvents = new MotionEvent[MAX_HELD_EVENTS];
+
+  private int heldEventCount = 0;
+
+  /** The pointer whose down started the held sequence. */
+  private int heldPointerId = -1;
+
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final Runnable holdBackTimeout = this::flushHeldEvents;
+  private final Runnable pendingAnswersTask = this::applyPendingAnswers;
+
+  private final NativeViewHistogram[] histograms = {
+    new NativeViewHistogram(), new NativeViewHistogram(), new NativeViewHistogram()
+  };
 
-  /** Pointer IDs claimed by Flutter (not forwarded to native view). */
-  private final HashSet<Integer> claimedPointers = new HashSet<>();
+  /** {@link System#nanoTime()} at which each pointer's down was received, or 0 once claimed. */
+  private final AtomicLongArray pointerDownNanos = new AtomicLongArray(MAX_POINTERS);
 
-  /** Last event dispatched to native view, used for creating cancel events. */
-  @Nullable private MotionEvent lastDispatchedEvent;
+  /** Gesture state of one native view that receives touch events. */
+  private static final class Target {
+    final View view;
+
+    /** Whether the view is among {@link #targets}. */
+    boolean isTarget;
+
+    /** Pointer IDs routed to this view, one bit per ID. */
+    int pointerBits;
+
+    /** Set once a claim cancelled this view's gesture; cleared when its pointers are all up. */
+    boolean cancelled;
+
+    /**
+     * Whether the view has received events of the current touch sequence. Together with the fields
+     * below this is enough to build a cancel event on demand, without copying every event.
+     */
+    boolean hasGesture;
+
+    long downTime;
+    long lastEventTime;
+
+    /** Events dispatched to the view since its current gesture started. */
+    int eventCount;
+    float lastX;
+    float lastY;
+    int lastMetaState;
+
+    Target(@NonNull View view) {
+      this.view = view;
+    }
+
+    float offsetX() {
+      return view.getLeft() + view.getTranslationX();
+    }
+
+    float offsetY() {
+      return view.getTop() + view.getTranslationY();
+    }
+
+    boolean contains(float x, float y) {
+      float left = offsetX();
+      float top = offsetY();
+      return x >= left && x < left + view.getWidth() && y >= top && y < top + view.getHeight();
+    }
+  }
 
   public NativeViewGestureHandler(@NonNull BinaryMessenger binaryMessenger) {
-    channel = new MethodChannel(binaryMessenger, CHANNEL_NAME);
+    channel =
+        new MethodChannel(
+            binaryMessenger,
+            CHANNEL_NAME,
+            StandardMethodCodec.INSTANCE,
+            binaryMessenger.makeBackgroundTaskQueue());
     channel.setMethodCallHandler(this);
   }
 
   /** Sets the native view to forward touch events to. */
   public void setTargetView(@Nullable View view) {
-    this.targetView = view;
+    setTargetViews(view != null ? Collections.singletonList(view) : Collections.emptyList());
   }
 
+  /**
+   * Sets the visible native views that receive touch events, topmost first.
+   *
+   * <p>Each pointer is routed to the topmost view under the point where it went down and stays with
+   * that view until it goes up. Events whose pointers span several views are split per view.
+   *
+   * <p>The list is not retained. Passing the current views again does nothing and allocates
+   * nothing; otherwise this takes time linear in the number of views.
+   */
+  public void setTargetViews(@NonNull List<View> views) {
+    if (hasTargetViews(views)) {
+      return;
+    }
+    Map<View, Target> previous = new IdentityHashMap<>(targets.length * 2);
+    for (Target target : targets) {
+      previous.put(target.view, target);
+      target.isTarget = false;
+    }
+    Target[] newTargets = new Target[views.size()];
+    for (int i = 0; i < newTargets.length; i++) {
+      View view = views.get(i);
+      Target target = previous.get(view);
+      newTargets[i] = target != null ? target : new Target(view);
+      newTargets[i].isTarget = true;
+    }
+    targets = newTargets;
+
+    // Pointers on views that are no longer targets get no further events.
+    for (int id = 0; id < MAX_POINTERS; id++) {
+      if (pointerTargets[id] != null && !pointerTargets[id].isTarget) {
+        pointerTargets[id] = null;
+      }
+    }
+  }
+
+  private boolean hasTargetViews(@NonNull List<View> views) {
+    if (views.size() != targets.length) {
+      return false;
+    }
+    for (int i = 0; i < targets.length; i++) {
+      if (targets[i].view != views.get(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Returns the topmost view receiving touch events, or null if there is none. */
   @Nullable
   public View getTargetView() {
-    return targetView;
+    return targets.length > 0 ? targets[0].view : null;
   }
 
   public boolean isGesturesEnabled() {
@@ -52,75 +230,490 @@ public class NativeViewGestureHandler implements MethodChannel.MethodCallHandler
     this.gesturesEnabled = enabled;
   }
 
-  /** Dispatches a touch event to the target view if appropriate. */
+  /**
+   * Sets the regions covered by interactive Flutter widgets, as consecutive left, top, right,
+   * bottom values in physical pixels. Pointers that go down inside a region are claimed for Flutter
+   * immediately, before any event reaches the native view. Pass null to clear.
+   */
+  public void setHitRegions(@Nullable double[] bounds) {
+    // Built completely before it is published; the index is immutable afterwards.
+    NativeViewHitRegions regions = bounds != null ? new NativeViewHitRegions(bounds) : null;
+    hitRegions = regions != null && !regions.isEmpty() ? regions : null;
+  }
+
+  /**
+   * Holds back the events of every new touch sequence on a native view for up to {@code millis},
+   * until Flutter claims the pointer or answers that it does not, whichever comes first. Claimed
+   * sequences are dropped before the native view sees them; otherwise the held events are
+   * dispatched as a batch. A second pointer, the end of the sequence or a full buffer also release
+   * the held events. Pass 0 to disable, which is the default. May be called from any thread.
+   */
+  public void setHoldBackWindow(long millis) {
+    holdBackMillis = Math.max(0, millis);
+    if (holdBackMillis == 0) {
+      if (isMainThread()) {
+        flushHeldEvents();
+      } else {
+        handler.post(holdBackTimeout);
+      }
+    }
+  }
+
+  public long getHoldBackWindow() {
+    return holdBackMillis;
+  }
+
+  /** Dispatches a touch event to the target views if appropriate. */
   public void dispatchTouchEvent(@NonNull MotionEvent event) {
     int action = event.getActionMasked();
     int pointerIndex = event.getActionIndex();
     int pointerId = event.getPointerId(pointerIndex);
 
-    // Clean up when the touch sequence ends
+    if (pendingClaimBits.get() != 0 || pendingReleaseBits.get() != 0) {
+      // Answers that arrived on the channel thread since the last dispatch.
+      applyPendingAnswers();
+    }
+
+    if (heldEventCount > 0
+        && (action != MotionEvent.ACTION_MOVE || heldEventCount == MAX_HELD_EVENTS)) {
+      // Anything but a move changes the routing state; replay under the state the events saw.
+      flushHeldEvents();
+    }
+
+    if (action == MotionEvent.ACTION_DOWN) {
+      // A claim that arrived after the previous sequence ended must not block the new one.
+      claimedPointerBits.set(0);
+    }
+    if (action == MotionEvent.ACTION_DOWN || action == MotionEvent.ACTION_POINTER_DOWN) {
+      if (pointerId >= 0 && pointerId < MAX_POINTERS) {
+        pointerDownNanos.set(pointerId, System.nanoTime());
+      }
+      float x = event.getX(pointerIndex);
+      float y = event.getY(pointerIndex);
+      NativeViewHitRegions regions = hitRegions;
+      if (regions != null && regions.contains(x, y)) {
+        setBits(claimedPointerBits, pointerBit(pointerId));
+      }
+      Target target = findTarget(x, y);
+      if (pointerId >= 0 && pointerId < MAX_POINTERS) {
+        pointerTargets[pointerId] = target;
+      }
+      if (target != null) {
+        target.pointerBits |= pointerBit(pointerId);
+      }
+    }
+
+    if (gesturesEnabled) {
+      if (heldEventCount > 0 || shouldHoldBack(action, pointerId)) {
+        holdEvent(event, pointerId);
+      } else {
+        dispatchRouted(event, action, pointerId);
+      }
+    }
+
+    // Clean up when pointers or the whole touch sequence end
     if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
-      claimedPointers.clear();
-      recycleLastEvent();
+      claimedPointerBits.set(0);
+      Arrays.fill(pointerTargets, null);
+      for (Target target : targets) {
+        target.pointerBits = 0;
+        target.cancelled = false;
+        target.hasGesture = false;
+      }
     } else if (action == MotionEvent.ACTION_POINTER_UP) {
-      claimedPointers.remove(pointerId);
+      clearBits(claimedPointerBits, pointerBit(pointerId));
+      Target target = targetForPointer(pointerId);
+      if (target != null) {
+        pointerTargets[pointerId] = null;
+        target.pointerBits &= ~pointerBit(pointerId);
+        if (target.pointerBits == 0) {
+          target.cancelled = false;
+          target.hasGesture = false;
+        }
+      }
+    }
+  }
+
+  /** Whether {@code event} starts a sequence on a native view that Flutter has yet to decide on. */
+  private boolean shouldHoldBack(int action, int pointerId) {
+    return holdBackMillis > 0
+        && action == MotionEvent.ACTION_DOWN
+        && (claimedPointerBits.get() & pointerBit(pointerId)) == 0
+        && targetForPointer(pointerId) != null;
+  }
+
+  private void holdEvent(@NonNull MotionEvent event, int pointerId) {
+    if (heldEventCount == 0) {
+      heldPointerId = pointerId;
+      handler.postDelayed(holdBackTimeout, holdBackMillis);
+    }
+    heldEvents[heldEventCount++] = MotionEvent.obtain(event);
+  }
+
+  /** Dispatches the held events in order, as if they had not been held. */
+  private void flushHeldEvents() {
+    handler.removeCallbacks(holdBackTimeout);
+    int count = heldEventCount;
+    heldEventCount = 0;
+    heldPointerId = -1;
+    for (int i = 0; i < count; i++) {
+      MotionEvent event = heldEvents[i];
+      heldEvents[i] = null;
+      if (gesturesEnabled) {
+        dispatchRouted(event, event.getActionMasked(), event.getPointerId(event.getActionIndex()));
+      }
+      event.recycle();
     }
+  }
 
-    // Check if any pointer in this event is claimed by Flutter
-    boolean hasClaimedPointer = false;
+  /** Discards the held events; the native view never sees the sequence. */
+  private void dropHeldEvents() {
+    handler.removeCallbacks(holdBackTimeout);
+    for (int i = 0; i < heldEventCount; i++) {
+      heldEvents[i].recycle();
+      heldEvents[i] = null;
+    }
+    heldEventCount = 0;
+    heldPointerId = -1;
+  }
+
+  /**
+   * Sends the event to the views its pointers are routed to. The claim bits are read once, so a
+   * claim arriving on the channel thread meanwhile applies to the whole event or not at all.
+   */
+  private void dispatchRouted(@NonNull MotionEvent event, int action, int pointerId) {
+    int claimed = claimedPointerBits.get();
+    // Common case: every pointer of this event belongs to the same view. A pointer that went down
+    // outside every view must not reach it, so the event is split then as well.
+    Target single = null;
+    boolean unrouted = false;
+    boolean split = false;
     for (int i = 0; i < event.getPointerCount(); i++) {
-      if (claimedPointers.contains(event.getPointerId(i))) {
-        hasClaimedPointer = true;
+      Target target = targetForPointer(event.getPointerId(i));
+      if (target == null) {
+        unrouted = true;
+      } else if (single == null) {
+        single = target;
+      } else if (target != single) {
+        split = true;
         break;
       }
     }
+    if (split || (unrouted && single != null)) {
+      dispatchSplit(event, action, pointerId, claimed);
+    } else if (single != null) {
+      if (isBlocked(single, claimed)) {
+        cancelIfForwarded(single);
+      } else {
+        dispatchToTarget(single, event, action);
+      }
+    }
+  }
 
-    if (gesturesEnabled && targetView != null && !hasClaimedPointer) {
-      saveLastEvent(event);
-      targetView.dispatchTouchEvent(event);
+  @Nullable
+  private Target findTarget(float x, float y) {
+    for (Target target : targets) {
+      if (target.contains(x, y)) {
+        return target;
+      }
     }
+    return null;
+  }
+
+  @Nullable
+  private Target targetForPointer(int pointerId) {
+    return pointerId >= 0 && pointerId < MAX_POINTERS ? pointerTargets[pointerId] : null;
   }
 
-  private void saveLastEvent(@NonNull MotionEvent event) {
-    recycleLastEvent();
-    lastDispatchedEvent = MotionEvent.obtain(event);
+  private static boolean isBlocked(@NonNull Target target, int claimed) {
+    return target.cancelled || (target.pointerBits & claimed) != 0;
+  }
+
+  /**
+   * Sends the cancel event to a view whose pointers became blocked before the claim was applied on
+   * the main thread, so it never keeps a half-finished gesture, even when the blocked event is the
+   * last one of the sequence.
+   */
+  private void cancelIfForwarded(@NonNull Target target) {
+    if (!target.cancelled && target.hasGesture) {
+      cancelGesture(target);
+    }
   }
 
-  private void recycleLastEvent() {
-    if (lastDispatchedEvent != null) {
-      lastDispatchedEvent.recycle();
-      lastDispatchedEvent = null;
+  /** Forwards the event unchanged apart from shifting it into the target's coordinate space. */
+  private void dispatchToTarget(@NonNull Target target, @NonNull MotionEvent event, int action) {
+    recordDispatchDelay(event);
+    countEvent(target);
+    float offsetX = target.offsetX();
+    float offsetY = target.offsetY();
+    if (action == MotionEvent.ACTION_DOWN) {
+      target.downTime = event.getDownTime();
     }
+    target.lastEventTime = event.getEventTime();
+    target.lastX = event.getX() - offsetX;
+    target.lastY = event.getY() - offsetY;
+    target.lastMetaState = event.getMetaState();
+    target.hasGesture = action != MotionEvent.ACTION_UP && action != MotionEvent.ACTION_CANCEL;
+    // Events arrive in window coordinates; shift them into the target's own space.
+    event.offsetLocation(-offsetX, -offsetY);
+    target.view.dispatchTouchEvent(event);
+    event.offsetLocation(offsetX, offsetY);
   }
 
-  /** Claims a pointer for exclusive Flutter handling. */
+  /**
+   * Builds and dispatches one event per target containing only that target's pointers, mapping
+   * pointer down/up actions the way {@link android.view.ViewGroup} does for split touches.
+   */
+  private void dispatchSplit(
+      @NonNull MotionEvent event, int action, int actionPointerId, int claimed) {
+    if (splitProperties == null || splitCoords == null) {
+      splitProperties = new MotionEvent.PointerProperties[MAX_POINTERS];
+      splitCoords = new MotionEvent.PointerCoords[MAX_POINTERS];
+      for (int i = 0; i < MAX_POINTERS; i++) {
+        splitProperties[i] = new MotionEvent.PointerProperties();
+        splitCoords[i] = new MotionEvent.PointerCoords();
+      }
+    }
+    recordDispatchDelay(event);
+
+    for (Target target : targets) {
+      if (target.pointerBits == 0) {
+        continue;
+      }
+      if (isBlocked(target, claimed)) {
+        cancelIfForwarded(target);
+        continue;
+      }
+      float offsetX = target.offsetX();
+      float offsetY = target.offsetY();
+      int count = 0;
+      int actionIndex = -1;
+      for (int i = 0; i < event.getPointerCount() && count < MAX_POINTERS; i++) {
+        int id = event.getPointerId(i);
+        if (targetForPointer(id) != target) {
+          continue;
+        }
+        event.getPointerProperties(i, splitProperties[count]);
+        event.getPointerCoords(i, splitCoords[count]);
+        splitCoords[count].x -= offsetX;
+        splitCoords[count].y -= offsetY;
+        if (id == actionPointerId) {
+          actionIndex = count;
+        }
+        count++;
+      }
+      if (count == 0) {
+        continue;
+      }
+
+      int splitAction = splitAction(action, actionIndex, count);
+      countEvent(target);
+      if (splitAction == MotionEvent.ACTION_DOWN) {
+        target.downTime = event.getEventTime();
+      }
+      target.lastEventTime = event.getEventTime();
+      target.lastX = splitCoords[0].x;
+      target.lastY = splitCoords[0].y;
+      target.lastMetaState = event.getMetaState();
+      target.hasGesture =
+          splitAction != MotionEvent.ACTION_UP && splitAction != MotionEvent.ACTION_CANCEL;
+
+      MotionEvent splitEvent =
+          MotionEvent.obtain(
+              target.downTime,
+              event.getEventTime(),
+              splitAction,
+              count,
+              splitProperties,
+              splitCoords,
+              event.getMetaState(),
+              event.getButtonState(),
+              event.getXPrecision(),
+              event.getYPrecision(),
+              event.getDeviceId(),
+              event.getEdgeFlags(),
+              event.getSource(),
+              event.getFlags());
+      target.view.dispatchTouchEvent(splitEvent);
+      splitEvent.recycle();
+    }
+  }
+
+  private void recordDispatchDelay(@NonNull MotionEvent event) {
+    // Event times are uptime milliseconds; both clocks are CLOCK_MONOTONIC on Android.
+    histograms[DISPATCH_DELAY].record(System.nanoTime() / 1000 - event.getEventTime() * 1000);
+  }
+
+  private static void countEvent(@NonNull Target target) {
+    if (!target.hasGesture) {
+      target.eventCount = 0;
+    }
+    target.eventCount++;
+  }
+
+  /**
+   * Maps the action of the original event to the action seen by a target holding {@code count} of
+   * its pointers, where {@code actionIndex} is the acting pointer's index among them or -1.
+   */
+  private static int splitAction(int action, int actionIndex, int count) {
+    if (action == MotionEvent.ACTION_POINTER_DOWN || action == MotionEvent.ACTION_POINTER_UP) {
+      if (actionIndex < 0) {
+        return MotionEvent.ACTION_MOVE;
+      }
+      if (count == 1) {
+        return action == MotionEvent.ACTION_POINTER_DOWN
+            ? MotionEvent.ACTION_DOWN
+            : MotionEvent.ACTION_UP;
+      }
+      return action | (actionIndex << MotionEvent.ACTION_POINTER_INDEX_SHIFT);
+    }
+    if (action == MotionEvent.ACTION_DOWN
+        || action == MotionEvent.ACTION_UP
+        || action == MotionEvent.ACTION_CANCEL) {
+      return action;
+    }
+    return MotionEvent.ACTION_MOVE;
+  }
+
+  /** Returns the claim bit for a pointer ID, or 0 for IDs outside the MotionEvent range. */
+  private static int pointerBit(int pointerId) {
+    return pointerId >= 0 && pointerId < MAX_POINTERS ? 1 << pointerId : 0;
+  }
+
+  // Compare-and-set loops rather than getAndAccumulate, which needs API 24.
+  private static void setBits(@NonNull AtomicInteger bits, int mask) {
+    int current;
+    do {
+      current = bits.get();
+    } while (!bits.compareAndSet(current, current | mask));
+  }
+
+  private static void clearBits(@NonNull AtomicInteger bits, int mask) {
+    int current;
+    do {
+      current = bits.get();
+    } while (!bits.compareAndSet(current, current & ~mask));
+  }
+
+  private static boolean isMainThread() {
+    return Looper.myLooper() == Looper.getMainLooper();
+  }
+
+  /**
+   * Claims a pointer for exclusive Flutter handling. May be called from any thread.
+   *
+   * <p>{@code pointerId} is the Android pointer ID, which Flutter reports as {@code
+   * PointerEvent.device}. Its events stop reaching native views at once; the gesture of the view
+   * the pointer went down on is cancelled on the main thread.
+   */
   public void claimPointer(int pointerId) {
-    claimedPointers.add(pointerId);
-    cancelGestureOnTargetView();
+    int bit = pointerBit(pointerId);
+    if (bit != 0) {
+      long downNanos = pointerDownNanos.getAndSet(pointerId, 0);
+      if (downNanos != 0) {
+        histograms[CLAIM_LATENCY].record((System.nanoTime() - downNanos) / 1000);
+      }
+    }
+    setBits(claimedPointerBits, bit);
+    setBits(pendingClaimBits, bit);
+    applyOrPostAnswers();
   }
 
-  /** Releases a previously claimed pointer. */
+  /**
+   * Releases a previously claimed pointer. May be called from any thread. For a pointer whose
+   * events are held back, this is Flutter's answer that it does not claim it, and the held events
+   * are dispatched right away.
+   */
   public void releasePointer(int pointerId) {
-    claimedPointers.remove(pointerId);
+    int bit = pointerBit(pointerId);
+    clearBits(claimedPointerBits, bit);
+    setBits(pendingReleaseBits, bit);
+    applyOrPostAnswers();
+  }
+
+  private void applyOrPostAnswers() {
+    if (isMainThread()) {
+      applyPendingAnswers();
+    } else if (answersPosted.compareAndSet(false, true)) {
+      handler.post(pendingAnswersTask);
+    }
+  }
+
+  /** Cancels the gestures of claimed pointers, and drops or flushes held events, on main. */
+  private void applyPendingAnswers() {
+    answersPosted.set(false);
+    int claims = pendingClaimBits.getAndSet(0);
+    int releases = pendingReleaseBits.getAndSet(0);
+    if (heldEventCount > 0) {
+      int heldBit = pointerBit(heldPointerId);
+      if ((claims & heldBit) != 0) {
+        dropHeldEvents();
+      } else if ((releases & heldBit) != 0) {
+        flushHeldEvents();
+      }
+    }
+    while (claims != 0) {
+      int pointerId = Integer.numberOfTrailingZeros(claims);
+      claims &= claims - 1;
+      Target target = pointerTargets[pointerId];
+      if (target != null) {
+        cancelGesture(target);
+      }
+    }
   }
 
   /** Sends a cancel event to the target view to cancel any ongoing gesture. */
-  private void cancelGestureOnTargetView() {
-    if (targetView != null && lastDispatchedEvent != null) {
-      MotionEvent cancelEvent = MotionEvent.obtain(lastDispatchedEvent);
-      cancelEvent.setAction(MotionEvent.ACTION_CANCEL);
-      targetView.dispatchTouchEvent(cancelEvent);
+  private void cancelGesture(@NonNull Target target) {
+    if (!target.cancelled) {
+      histograms[EVENTS_BEFORE_CANCEL].record(target.hasGesture ? target.eventCount : 0);
+    }
+    target.cancelled = true;
+    if (target.hasGesture) {
+      MotionEvent cancelEvent =
+          MotionEvent.obtain(
+              target.downTime,
+              target.lastEventTime,
+              MotionEvent.ACTION_CANCEL,
+              target.lastX,
+              target.lastY,
+              target.lastMetaState);
+      target.view.dispatchTouchEvent(cancelEvent);
       cancelEvent.recycle();
-      recycleLastEvent();
+      target.hasGesture = false;
     }
   }
 
+  /**
+   * Returns the histogram of {@code metric}, one of {@link #DISPATCH_DELAY}, {@link #CLAIM_LATENCY}
+   * or {@link #EVENTS_BEFORE_CANCEL}. Histograms are always recorded and may be read from any
+   * thread.
+   */
+  @NonNull
+  public NativeViewHistogram getHistogram(int metric) {
+    return histograms[metric];
+  }
+
+  /** Returns a percentile snapshot of every histogram, keyed by name, for the method channel. */
+  @NonNull
+  private Map<String, Object> histogramsToMap() {
+    Map<String, Object> map = new HashMap<>();
+    for (int metric = 0; metric < histograms.length; metric++) {
+      map.put(HISTOGRAM_NAMES[metric], histograms[metric].toMap());
+    }
+    return map;
+  }
+
   /** Releases resources and unregisters the method channel handler. */
   public void dispose() {
     channel.setMethodCallHandler(null);
-    claimedPointers.clear();
-    recycleLastEvent();
-    targetView = null;
+    handler.removeCallbacks(pendingAnswersTask);
+    dropHeldEvents();
+    claimedPointerBits.set(0);
+    pendingClaimBits.set(0);
+    pendingReleaseBits.set(0);
+    targets = new Target[0];
+    Arrays.fill(pointerTargets, null);
+    hitRegions = null;
   }
 
   @Override
@@ -150,6 +743,27 @@ public class NativeViewGestureHandler implements MethodChannel.MethodCallHandler
         }
         result.success(null);
         break;
+      case "setHoldBackWindow":
+        Number millis = call.argument("millis");
+        setHoldBackWindow(millis != null ? millis.longValue() : 0);
+        result.success(null);
+        break;
+      case "getInputMetrics":
+        result.success(histogramsToMap());
+        if (Boolean.TRUE.equals(call.argument("reset"))) {
+          for (NativeViewHistogram histogram : histograms) {
+            histogram.reset();
+          }
+        }
+        break;
+      case "setHitRegions":
+        try {
+          setHitRegions(call.argument("regions"));
+          result.success(null);
+        } catch (IllegalArgumentException e) {
+          result.error("INVALID_ARGUMENT", e.getMessage(), null);
+        }
+        break;
       default:
         result.notImplemented();
         break;
@@ -0,0 +1,107 @@
+package io.flutter.plugins.nativeview;
+
+import androidx.annotation.NonNull;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size histogram of non-negative values, recorded without allocating and safe to use from
+ * any thread.
+ *
+ * <p>Values below 4 are counted exactly; larger ones fall into four buckets per power of two, so a
+ * percentile is within 25% of the recorded value. Values above {@code 2^32 - 1} are clamped.
+ */
+public final class NativeViewHistogram {
+
+  private static final int MAX_EXPONENT = 31;
+  private static final int BUCKET_COUNT = 4 + (MAX_EXPONENT - 1) * 4;
+  private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  NativeViewHistogram() {}
+
+  void record(long value) {
+    long clamped = Math.max(0, Math.min(value, MAX_VALUE));
+    buckets.incrementAndGet(bucketIndex(clamped));
+    count.incrementAndGet();
+    long current = max.get();
+    while (clamped > current && !max.compareAndSet(current, clamped)) {
+      current = max.get();
+    }
+  }
+
+  /** Returns how many values were recorded since creation or the last {@link #reset()}. */
+  public long getCount() {
+    return count.get();
+  }
+
+  /** Returns the largest recorded value, or 0 if there is none. */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Returns the upper bound of the bucket holding the {@code percentile}th value, capped at {@link
+   * #getMax()}, or 0 if nothing was recorded.
+   */
+  public long getPercentile(double percentile) {
+    long total = count.get();
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100) / 100));
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += buckets.get(i);
+      if (seen >= rank) {
+        return Math.min(bucketUpperBound(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /** Clears all recorded values. */
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      buckets.set(i, 0);
+    }
+    count.set(0);
+    max.set(0);
+  }
+
+  /** Returns count, max and the 50th, 90th and 99th percentiles for the method channel. */
+  @NonNull
+  Map<String, Object> toMap() {
+    Map<String, Object> map = new HashMap<>();
+    map.put("count", getCount());
+    map.put("p50", getPercentile(50));
+    map.put("p90", getPercentile(90));
+    map.put("p99", getPercentile(99));
+    map.put("max", getMax());
+    return map;
+  }
+
+  private static int bucketIndex(long value) {
+    if (value < 4) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - 2)) & 3;
+    return 4 + (exponent - 2) * 4 + subBucket;
+  }
+
+  private static long bucketUpperBound(int index) {
+    if (index < 4) {
+      return index;
+    }
+    int exponent = (index - 4) / 4 + 2;
+    int subBucket = (index - 4) % 4;
+    long lower = (long) (4 + subBucket) << (exponent - 2);
+    return lower + (1L << (exponent - 2)) - 1;
+  }
+}
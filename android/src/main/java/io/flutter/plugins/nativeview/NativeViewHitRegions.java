@@ -0,0 +1,113 @@
+package io.flutter.plugins.nativeview;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Immutable uniform-grid index of the rectangles covered by interactive Flutter overlay widgets.
+ *
+ * <p>Used by {@link NativeViewGestureHandler} to decide on pointer down, without a channel round
+ * trip, whether a pointer belongs to Flutter. Lookups touch a single grid cell and do not allocate.
+ */
+final class NativeViewHitRegions {
+
+  /** Number of grid cells along each axis. */
+  private static final int GRID_SIZE = 8;
+
+  /** Rectangles as consecutive left, top, right, bottom values in physical pixels. */
+  private final float[] rects;
+
+  /** Indices into {@link #rects} (divided by four) of the rectangles overlapping each cell. */
+  private final int[][] cells;
+
+  private final float cellWidth;
+  private final float cellHeight;
+
+  /**
+   * Builds an index from consecutive left, top, right, bottom values in physical pixels.
+   *
+   * @throws IllegalArgumentException if the array length is not a multiple of four
+   */
+  NativeViewHitRegions(@NonNull double[] bounds) {
+    if (bounds.length % 4 != 0) {
+      throw new IllegalArgumentException("Region bounds must come in groups of four");
+    }
+    rects = new float[bounds.length];
+    float maxRight = 1f;
+    float maxBottom = 1f;
+    for (int i = 0; i < bounds.length; i += 4) {
+      rects[i] = (float) bounds[i];
+      rects[i + 1] = (float) bounds[i + 1];
+      rects[i + 2] = (float) bounds[i + 2];
+      rects[i + 3] = (float) bounds[i + 3];
+      maxRight = Math.max(maxRight, rects[i + 2]);
+      maxBottom = Math.max(maxBottom, rects[i + 3]);
+    }
+    cellWidth = maxRight / GRID_SIZE;
+    cellHeight = maxBottom / GRID_SIZE;
+
+    int[] counts = new int[GRID_SIZE * GRID_SIZE];
+    for (int i = 0; i < rects.length; i += 4) {
+      addToCells(i, counts, null);
+    }
+    cells = new int[counts.length][];
+    for (int cell = 0; cell < counts.length; cell++) {
+      cells[cell] = new int[counts[cell]];
+    }
+    for (int i = 0; i < rects.length; i += 4) {
+      addToCells(i, counts, cells);
+    }
+  }
+
+  /**
+   * Visits the cells overlapped by the rectangle at {@code offset}. Counts them up when {@code
+   * target} is null, otherwise fills {@code target} back to front while counting down.
+   */
+  private void addToCells(int offset, @NonNull int[] counts, @Nullable int[][] target) {
+    int firstColumn = column(rects[offset]);
+    int lastColumn = column(rects[offset + 2]);
+    int firstRow = row(rects[offset + 1]);
+    int lastRow = row(rects[offset + 3]);
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        int cell = row * GRID_SIZE + column;
+        if (target == null) {
+          counts[cell]++;
+        } else {
+          target[cell][--counts[cell]] = offset / 4;
+        }
+      }
+    }
+  }
+
+  /** Returns whether the point lies inside any region. */
+  boolean contains(float x, float y) {
+    if (x < 0 || y < 0) {
+      return false;
+    }
+    int column = (int) (x / cellWidth);
+    int row = (int) (y / cellHeight);
+    if (column >= GRID_SIZE || row >= GRID_SIZE) {
+      return false;
+    }
+    for (int index : cells[row * GRID_SIZE + column]) {
+      int i = index * 4;
+      if (x >= rects[i] && x < rects[i + 2] && y >= rects[i + 1] && y < rects[i + 3]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  boolean isEmpty() {
+    return rects.length == 0;
+  }
+
+  private int column(float x) {
+    return Math.min(Math.max((int) (x / cellWidth), 0), GRID_SIZE - 1);
+  }
+
+  private int row(float y) {
+    return Math.min(Math.max((int) (y / cellHeight), 0), GRID_SIZE - 1);
+  }
+}
@@ -0,0 +1,94 @@
+package io.flutter.plugins.nativeview;
+
+import androidx.annotation.NonNull;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lifecycle timings collected for one view key while metrics are enabled, either by a registered
+ * {@link Listener} or from Dart.
+ *
+ * <p>All durations are in nanoseconds and measured on the main thread.
+ */
+public final class NativeViewMetrics {
+
+  /** Receives every timing as it is recorded, on the main thread. */
+  public interface Listener {
+    void onMetric(@NonNull String viewKey, int metric, long durationNanos);
+  }
+
+  /** Time spent in {@code addView}, including the view factory and {@code onCreateView()}. */
+  public static final int CREATE = 0;
+
+  /** Time from the start of {@code addView} to the first draw pass with the view shown. */
+  public static final int FIRST_DRAW = 1;
+
+  /** Time spent in {@code showView}. */
+  public static final int SHOW = 2;
+
+  /** Time spent in {@code hideView}. */
+  public static final int HIDE = 3;
+
+  /** Time spent in {@code removeView}, including disposal or recycling. */
+  public static final int DISPOSE = 4;
+
+  private static final String[] NAMES = {"create", "firstDraw", "show", "hide", "dispose"};
+
+  private final long[] lastNanos = new long[NAMES.length];
+  private final long[] totalNanos = new long[NAMES.length];
+  private final long[] maxNanos = new long[NAMES.length];
+  private final int[] counts = new int[NAMES.length];
+
+  NativeViewMetrics() {}
+
+  void record(int metric, long durationNanos) {
+    lastNanos[metric] = durationNanos;
+    totalNanos[metric] += durationNanos;
+    maxNanos[metric] = Math.max(maxNanos[metric], durationNanos);
+    counts[metric]++;
+  }
+
+  /** Returns the most recent duration recorded for {@code metric}, or 0 if there is none. */
+  public long getLastNanos(int metric) {
+    return lastNanos[metric];
+  }
+
+  /** Returns the sum of all durations recorded for {@code metric}. */
+  public long getTotalNanos(int metric) {
+    return totalNanos[metric];
+  }
+
+  /** Returns the longest duration recorded for {@code metric}. */
+  public long getMaxNanos(int metric) {
+    return maxNanos[metric];
+  }
+
+  /** Returns how many durations were recorded for {@code metric}. */
+  public int getCount(int metric) {
+    return counts[metric];
+  }
+
+  /** Returns the name of {@code metric} as used on the method channel, e.g. {@code "show"}. */
+  @NonNull
+  public static String getName(int metric) {
+    return NAMES[metric];
+  }
+
+  /** Returns the timings in microseconds, keyed by metric name, for the method channel. */
+  @NonNull
+  Map<String, Object> toMap() {
+    Map<String, Object> map = new HashMap<>();
+    for (int metric = 0; metric < NAMES.length; metric++) {
+      if (counts[metric] == 0) {
+        continue;
+      }
+      Map<String, Object> timing = new HashMap<>();
+      timing.put("count", counts[metric]);
+      timing.put("lastMicros", lastNanos[metric] / 1000);
+      timing.put("totalMicros", totalNanos[metric] / 1000);
+      timing.put("maxMicros", maxNanos[metric] / 1000);
+      map.put(NAMES[metric], timing);
+    }
+    return map;
+  }
+}
@@ -1,7 +1,10 @@
 package io.flutter.plugins.nativeview;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.flutter.embedding.engine.FlutterEngine;
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
+import io.flutter.embedding.engine.plugins.PluginRegistry;
 
 /**
  * Plugin class for flutter_native_view_android.
@@ -11,6 +14,29 @@ import io.flutter.embedding.engine.plugins.FlutterPlugin;
  * in your own code.
  */
 public class NativeViewPlugin implements FlutterPlugin {
+  /**
+   * The delegate that owns the channels of this plugin's engine, or null while no host is attached.
+   * Kept on the engine's plugin instance rather than in a static map, so a cached engine never pins
+   * a destroyed activity and nothing outlives the engine.
+   */
+  @Nullable NativeViewDelegate boundDelegate;
+
+  /** Whether a host has been attached to this engine before. */
+  boolean hadHost;
+
+  /** Returns the instance registered with {@code flutterEngine}, registering one if needed. */
+  @NonNull
+  static NativeViewPlugin of(@NonNull FlutterEngine flutterEngine) {
+    PluginRegistry plugins = flutterEngine.getPlugins();
+    FlutterPlugin plugin = plugins.get(NativeViewPlugin.class);
+    if (plugin instanceof NativeViewPlugin nativeViewPlugin) {
+      return nativeViewPlugin;
+    }
+    NativeViewPlugin nativeViewPlugin = new NativeViewPlugin();
+    plugins.add(nativeViewPlugin);
+    return nativeViewPlugin;
+  }
+
   @Override
   public void onAttachedToEngine(@NonNull FlutterPluginBinding binding) {
     // No-op: This plugin provides base classes, not runtime functionality.
@@ -18,6 +44,6 @@ public class NativeViewPlugin implements FlutterPlugin {
 
   @Override
   public void onDetachedFromEngine(@NonNull FlutterPluginBinding binding) {
-    // No-op
+    boundDelegate = null;
   }
 }
@@ -0,0 +1,92 @@
+package io.flutter.plugins.nativeview;
+
+import android.graphics.Canvas;
+import android.os.Build;
+import android.view.Surface;
+import android.view.View;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.flutter.view.TextureRegistry;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A copy of a native view's content in a Flutter texture, shown by Dart while the live view is
+ * parked during a route transition.
+ *
+ * <p>Only content drawn through the view's own {@link View#draw(Canvas)} is captured; {@code
+ * SurfaceView} and {@code TextureView} content is not.
+ */
+final class NativeViewSnapshot {
+
+  private final TextureRegistry.SurfaceTextureEntry textureEntry;
+  private final Surface surface;
+  private final int width;
+  private final int height;
+  private final long captureNanos;
+
+  private NativeViewSnapshot(
+      @NonNull TextureRegistry.SurfaceTextureEntry textureEntry,
+      @NonNull Surface surface,
+      int width,
+      int height,
+      long captureNanos) {
+    this.textureEntry = textureEntry;
+    this.surface = surface;
+    this.width = width;
+    this.height = height;
+    this.captureNanos = captureNanos;
+  }
+
+  /** Draws {@code view} into a new texture, or returns null if the view has not been laid out. */
+  @Nullable
+  static NativeViewSnapshot capture(
+      @NonNull View view, @NonNull TextureRegistry textureRegistry) {
+    int width = view.getWidth();
+    int height = view.getHeight();
+    if (width == 0 || height == 0) {
+      return null;
+    }
+
+    long start = System.nanoTime();
+    TextureRegistry.SurfaceTextureEntry textureEntry = textureRegistry.createSurfaceTexture();
+    textureEntry.surfaceTexture().setDefaultBufferSize(width, height);
+    Surface surface = new Surface(textureEntry.surfaceTexture());
+    Canvas canvas =
+        Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
+            ? surface.lockHardwareCanvas()
+            : surface.lockCanvas(null);
+    try {
+      view.draw(canvas);
+    } finally {
+      surface.unlockCanvasAndPost(canvas);
+    }
+    return new NativeViewSnapshot(
+        textureEntry, surface, width, height, System.nanoTime() - start);
+  }
+
+  /** Estimated texture memory, assuming a single RGBA_8888 buffer. */
+  long getTextureBytes() {
+    return (long) width * height * 4;
+  }
+
+  long getCaptureNanos() {
+    return captureNanos;
+  }
+
+  @NonNull
+  Map<String, Object> toMap() {
+    Map<String, Object> map = new HashMap<>();
+    map.put("textureId", textureEntry.id());
+    map.put("width", width);
+    map.put("height", height);
+    map.put("captureMicros", captureNanos / 1000);
+    map.put("textureBytes", getTextureBytes());
+    return map;
+  }
+
+  void release() {
+    surface.release();
+    textureEntry.release();
+  }
+}
@@ -0,0 +1,113 @@
+package io.flutter.plugins.nativeview;
+
+import androidx.annotation.NonNull;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * Minimal JVM micro-benchmark harness. Each measurement runs an operation for a warm-up phase,
+ * then times a fixed number of operations and reports operations per second and bytes allocated
+ * per operation on the calling thread.
+ *
+ * <p>Benchmarks are skipped unless the {@code nativeview.benchmark} system property is true; see
+ * {@code android/build.gradle}. Results are printed and appended as CSV to the file named by
+ * {@code nativeview.benchmark.output}, if set.
+ */
+final class Benchmark {
+
+  /** One benchmarked operation; {@code i} is the iteration number, starting at 0. */
+  interface Op {
+    void run(int i) throws Exception;
+  }
+
+  /** Result of one measurement. */
+  static final class Result {
+    final String name;
+    final double opsPerSecond;
+    final double bytesPerOp;
+
+    Result(String name, double opsPerSecond, double bytesPerOp) {
+      this.name = name;
+      this.opsPerSecond = opsPerSecond;
+      this.bytesPerOp = bytesPerOp;
+    }
+  }
+
+  private Benchmark() {}
+
+  static boolean isEnabled() {
+    return Boolean.getBoolean("nativeview.benchmark");
+  }
+
+  /** Runs {@code op} {@code warmupOps} times, then measures {@code measuredOps} more runs. */
+  @NonNull
+  static Result measure(@NonNull String name, int warmupOps, int measuredOps, @NonNull Op op)
+      throws Exception {
+    for (int i = 0; i < warmupOps; i++) {
+      op.run(i);
+    }
+    long startBytes = allocatedBytes();
+    long startNanos = System.nanoTime();
+    for (int i = 0; i < measuredOps; i++) {
+      op.run(warmupOps + i);
+    }
+    long elapsedNanos = System.nanoTime() - startNanos;
+    long bytes = allocatedBytes() - startBytes;
+
+    Result result =
+        new Result(
+            name,
+            measuredOps * 1e9 / Math.max(1, elapsedNanos),
+            startBytes < 0 ? Double.NaN : (double) bytes / measuredOps);
+    report(result);
+    return result;
+  }
+
+  /**
+   * Returns the bytes allocated so far by the current thread, or -1 if the JVM cannot tell. The
+   * count includes the allocations of anything the thread ran, such as Robolectric's looper.
+   */
+  static long allocatedBytes() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean threads
+        && threads.isThreadAllocatedMemorySupported()) {
+      if (!threads.isThreadAllocatedMemoryEnabled()) {
+        threads.setThreadAllocatedMemoryEnabled(true);
+      }
+      return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return -1;
+  }
+
+  private static void report(@NonNull Result result) {
+    String line =
+        String.format(
+            Locale.US, "%s,%.0f,%.1f", result.name, result.opsPerSecond, result.bytesPerOp);
+    System.out.println(
+        String.format(
+            Locale.US,
+            "%-56s %14.0f ops/s %10.1f B/op",
+            result.name,
+            result.opsPerSecond,
+            result.bytesPerOp));
+    String output = System.getProperty("nativeview.benchmark.output");
+    if (output == null || output.isEmpty()) {
+      return;
+    }
+    File file = new File(output);
+    File parent = file.getParentFile();
+    if (parent != null) {
+      parent.mkdirs();
+    }
+    try (Writer writer = new FileWriter(file, true)) {
+      writer.write(line);
+      writer.write('\n');
+    } catch (IOException e) {
+      System.err.println("Could not write benchmark results to " + output + ": " + e);
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package io.flutter.plugins.nativeview;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.FlutterException;
+import io.flutter.plugin.common.MethodCall;
+import io.flutter.plugin.common.StandardMethodCodec;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * In-memory {@link BinaryMessenger} that stands in for the Dart side. Handlers run synchronously on
+ * the calling thread, whatever task queue they were registered with.
+ */
+final class FakeBinaryMessenger implements BinaryMessenger {
+
+  private final Map<String, BinaryMessageHandler> handlers = new HashMap<>();
+
+  /** Number of messages sent from the native side towards Dart. */
+  int sentMessageCount;
+
+  @NonNull
+  @Override
+  public TaskQueue makeBackgroundTaskQueue(@NonNull TaskQueueOptions options) {
+    return new TaskQueue() {};
+  }
+
+  @Override
+  public void send(@NonNull String channel, @Nullable ByteBuffer message) {
+    send(channel, message, null);
+  }
+
+  @Override
+  public void send(
+      @NonNull String channel, @Nullable ByteBuffer message, @Nullable BinaryReply callback) {
+    sentMessageCount++;
+    if (callback != null) {
+      callback.reply(null);
+    }
+  }
+
+  @Override
+  public void setMessageHandler(@NonNull String channel, @Nullable BinaryMessageHandler handler) {
+    if (handler != null) {
+      handlers.put(channel, handler);
+    } else {
+      handlers.remove(channel);
+    }
+  }
+
+  @Override
+  public void setMessageHandler(
+      @NonNull String channel,
+      @Nullable BinaryMessageHandler handler,
+      @Nullable TaskQueue taskQueue) {
+    setMessageHandler(channel, handler);
+  }
+
+  boolean hasHandler(@NonNull String channel) {
+    return handlers.containsKey(channel);
+  }
+
+  /** Delivers a raw message to the handler of {@code channel}, as the engine would. */
+  void deliver(@NonNull String channel, @NonNull ByteBuffer message, @NonNull BinaryReply reply) {
+    BinaryMessageHandler handler = handlers.get(channel);
+    if (handler == null) {
+      throw new IllegalStateException("No handler on " + channel);
+    }
+    handler.onMessage(message, reply);
+  }
+
+  /**
+   * Sends a method call to {@code channel} encoded with the standard codec and returns the decoded
+   * result, or the {@link FlutterException} of an error reply. Returns null until a handler that
+   * replies asynchronously has replied.
+   */
+  @Nullable
+  Object invokeMethod(@NonNull String channel, @NonNull String method, @Nullable Object arguments) {
+    Object[] result = new Object[1];
+    invokeMethod(channel, method, arguments, reply -> result[0] = reply);
+    return result[0];
+  }
+
+  /** Like {@link #invokeMethod(String, String, Object)}, passing the result to {@code onReply}. */
+  void invokeMethod(
+      @NonNull String channel,
+      @NonNull String method,
+      @Nullable Object arguments,
+      @NonNull Consumer<Object> onReply) {
+    ByteBuffer message =
+        StandardMethodCodec.INSTANCE.encodeMethodCall(new MethodCall(method, arguments));
+    message.rewind();
+    deliver(
+        channel,
+        message,
+        reply -> {
+          if (reply == null) {
+            onReply.accept(null);
+            return;
+          }
+          reply.rewind();
+          try {
+            onReply.accept(StandardMethodCodec.INSTANCE.decodeEnvelope(reply));
+          } catch (FlutterException e) {
+            onReply.accept(e);
+          }
+        });
+  }
+}
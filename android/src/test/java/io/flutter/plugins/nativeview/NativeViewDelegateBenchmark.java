@@ -0,0 +1,135 @@
+package io.flutter.plugins.nativeview;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Add, show, hide and remove timings with 1, 10 and 100 views. Run with {@code
+ * -Pnativeview.benchmark}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class NativeViewDelegateBenchmark {
+
+  private static final int[] VIEW_COUNTS = {1, 10, 100};
+  private static final int OPERATIONS = 20_000;
+
+  private TestHost host;
+
+  @Before
+  public void setUp() {
+    assumeTrue(Benchmark.isEnabled());
+    host = new TestHost();
+  }
+
+  @After
+  public void tearDown() {
+    if (host != null) {
+      host.delegate.onDestroy();
+    }
+  }
+
+  /** One op adds, shows, hides and removes a single view while {@code n - 1} others stay shown. */
+  @Test
+  public void addShowHideRemoveCycle() throws Exception {
+    for (int n : VIEW_COUNTS) {
+      String prefix = "cycle" + n + "_";
+      host.registerViews(prefix, n);
+      for (int i = 1; i < n; i++) {
+        assertTrue(host.delegate.addView(prefix + i));
+        assertTrue(host.delegate.showView(prefix + i));
+      }
+      String key = prefix + 0;
+
+      Benchmark.measure(
+          "delegate/addShowHideRemove/" + n + "views",
+          OPERATIONS / 10,
+          OPERATIONS / Math.max(1, n / 10),
+          i -> {
+            host.delegate.addView(key);
+            host.delegate.showView(key);
+            host.delegate.hideView(key);
+            host.delegate.removeView(key);
+          });
+
+      assertFalse(host.delegate.hasView(key));
+      for (int i = 1; i < n; i++) {
+        host.delegate.removeView(prefix + i);
+      }
+    }
+  }
+
+  /** One op shows the next of {@code n} attached views, hiding the previous one. */
+  @Test
+  public void showHideSwitch() throws Exception {
+    for (int n : VIEW_COUNTS) {
+      String prefix = "switch" + n + "_";
+      host.registerViews(prefix, n);
+      String[] keys = new String[n];
+      for (int i = 0; i < n; i++) {
+        keys[i] = prefix + i;
+        assertTrue(host.delegate.addView(keys[i]));
+      }
+
+      Benchmark.measure(
+          "delegate/showHideSwitch/" + n + "views",
+          OPERATIONS / 10,
+          OPERATIONS,
+          i -> {
+            host.delegate.hideView(keys[(i + n - 1) % n]);
+            host.delegate.showView(keys[i % n]);
+          });
+
+      for (String key : keys) {
+        host.delegate.removeView(key);
+      }
+    }
+  }
+
+  /** One op adds then removes all {@code n} views in a single transaction each, via the channel. */
+  @Test
+  public void transactionCycle() throws Exception {
+    for (int n : VIEW_COUNTS) {
+      String prefix = "transaction" + n + "_";
+      host.registerViews(prefix, n);
+      List<Map<String, Object>> adds = new ArrayList<>();
+      List<Map<String, Object>> removes = new ArrayList<>();
+      for (int i = 0; i < n; i++) {
+        adds.add(operation("add", prefix + i));
+        adds.add(operation("show", prefix + i));
+        removes.add(operation("remove", prefix + i));
+      }
+
+      Map<String, Object> addArguments = Collections.singletonMap("operations", adds);
+      Map<String, Object> removeArguments = Collections.singletonMap("operations", removes);
+      Benchmark.measure(
+          "channel/transaction/addShowRemove/" + n + "views",
+          Math.max(10, 1000 / n),
+          Math.max(100, 10_000 / n),
+          i -> {
+            host.messenger.invokeMethod(TestHost.CHANNEL, "applyTransaction", addArguments);
+            host.messenger.invokeMethod(TestHost.CHANNEL, "applyTransaction", removeArguments);
+          });
+
+      assertFalse(host.delegate.hasView(prefix + 0));
+    }
+  }
+
+  private static Map<String, Object> operation(String op, String viewKey) {
+    Map<String, Object> operation = new HashMap<>();
+    operation.put("op", op);
+    operation.put("viewKey", viewKey);
+    return operation;
+  }
+}
@@ -0,0 +1,311 @@
+package io.flutter.plugins.nativeview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Activity;
+import android.content.ComponentCallbacks2;
+import android.graphics.Color;
+import android.os.Looper;
+import android.view.View;
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class NativeViewDelegateTest {
+
+  /** A view prepared on a background thread before it is added. */
+  private static final class BackgroundNativeView extends TestNativeView {
+    @Override
+    protected boolean prepareInBackground() {
+      return true;
+    }
+  }
+
+  /** A view that fills the container with an opaque background. */
+  private static final class OpaqueNativeView extends TestNativeView {
+    @NonNull
+    @Override
+    protected View onCreateView() {
+      View view = super.onCreateView();
+      view.setBackgroundColor(Color.BLACK);
+      return view;
+    }
+  }
+
+  /** A delegate with a hidden view, a visible view and the active view on top. */
+  private static final class TrimFixture {
+    final TestHost host = new TestHost();
+    final Map<String, TestNativeView> views = new HashMap<>();
+
+    TrimFixture() {
+      for (String key : new String[] {"hidden", "visible", "active"}) {
+        host.delegate.registerNativeViewFactory(
+            key,
+            () -> {
+              TestNativeView view = new TestNativeView();
+              views.put(key, view);
+              return view;
+            });
+        assertTrue(host.delegate.addView(key));
+      }
+      assertTrue(host.delegate.showView("visible"));
+      assertTrue(host.delegate.showView("active"));
+      assertFalse(views.get("hidden").isVisible());
+      assertTrue(views.get("visible").isVisible());
+    }
+
+    void assertKept(String key, int level) {
+      assertSame(key + " at " + level, views.get(key), host.delegate.getNativeView(key));
+      assertEquals(key + " at " + level, 0, views.get(key).disposeCount);
+    }
+
+    void assertEvicted(String key, int level) {
+      assertNull(key + " at " + level, host.delegate.getNativeView(key));
+      assertEquals(key + " at " + level, 1, views.get(key).disposeCount);
+    }
+  }
+
+  @SuppressWarnings("deprecation")
+  @Test
+  public void onTrimMemory_evictsHiddenViewsUnderPressureAndVisibleOnesOnlyInBackground() {
+    int[] hiddenEvicted = {
+      ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW,
+      ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL,
+      ComponentCallbacks2.TRIM_MEMORY_MODERATE,
+      ComponentCallbacks2.TRIM_MEMORY_COMPLETE,
+    };
+    int[] hiddenKept = {
+      ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE,
+      ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN,
+      ComponentCallbacks2.TRIM_MEMORY_BACKGROUND,
+    };
+
+    for (int level : hiddenKept) {
+      TrimFixture fixture = trim(level);
+      fixture.assertKept("hidden", level);
+      fixture.assertKept("visible", level);
+      fixture.assertKept("active", level);
+    }
+    for (int level : hiddenEvicted) {
+      TrimFixture fixture = trim(level);
+      fixture.assertEvicted("hidden", level);
+      if (level == ComponentCallbacks2.TRIM_MEMORY_COMPLETE) {
+        fixture.assertEvicted("visible", level);
+      } else {
+        fixture.assertKept("visible", level);
+      }
+      fixture.assertKept("active", level);
+    }
+  }
+
+  @Test
+  public void onTrimMemory_evictedViewIsReaddedOnShow() {
+    TrimFixture fixture = trim(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+    TestNativeView evicted = fixture.views.get("visible");
+
+    assertTrue(fixture.host.delegate.showView("visible"));
+
+    NativeView readded = fixture.host.delegate.getNativeView("visible");
+    assertNotNull(readded);
+    assertNotSame(evicted, readded);
+    assertTrue(readded.isVisible());
+  }
+
+  @Test
+  public void onDestroy_answersQueuedCalls() {
+    TestHost host = new TestHost();
+    Object[] answers = new Object[2];
+    host.delegate.registerNativeViewFactory("background", BackgroundNativeView::new);
+    host.delegate.registerNativeViewFactory("plain", TestNativeView::new);
+
+    host.delegate.addViewAsync("background", added -> answers[0] = added);
+    host.delegate.addViewAsync("plain", added -> answers[1] = added);
+    host.delegate.onDestroy();
+
+    assertEquals(Arrays.asList(false, false), Arrays.asList(answers));
+  }
+
+  @Test
+  public void onMethodCall_appliesViewCallsInOrderBehindPendingAdds() throws Exception {
+    TestHost host = new TestHost();
+    host.delegate.registerNativeViewFactory("background", BackgroundNativeView::new);
+    host.delegate.registerNativeViewFactory("plain", TestNativeView::new);
+    List<String> replies = new ArrayList<>();
+
+    invoke(host, "addView", "background", replies);
+    invoke(host, "addView", "plain", replies);
+    invoke(host, "showView", "plain", replies);
+    assertEquals(Collections.emptyList(), replies);
+
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (replies.size() < 3 && System.currentTimeMillis() < deadline) {
+      shadowOf(Looper.getMainLooper()).idle();
+      Thread.sleep(1);
+    }
+
+    assertEquals(Arrays.asList("addView background", "addView plain", "showView plain"), replies);
+    assertTrue(host.delegate.getNativeView("plain").isVisible());
+    host.delegate.onDestroy();
+  }
+
+  @Test
+  public void onMethodCall_addViewOfKeyStillWaitingForPrewarmCountsAMiss() {
+    TestHost host = new TestHost();
+    int[] created = {0};
+    host.delegate.registerNativeViewFactory(
+        "prewarm",
+        () -> {
+          created[0]++;
+          return new TestNativeView();
+        });
+    host.delegate.prewarmViews("prewarm");
+
+    Object added =
+        host.messenger.invokeMethod(
+            TestHost.CHANNEL, "addView", Collections.singletonMap("viewKey", "prewarm"));
+    assertEquals(true, added);
+    shadowOf(Looper.getMainLooper()).idle();
+
+    assertEquals(1, host.delegate.getPrewarmMissCount());
+    assertEquals(0, host.delegate.getPrewarmHitCount());
+    assertEquals(1, created[0]);
+    host.delegate.onDestroy();
+  }
+
+  @Test
+  public void configureFlutterEngine_releasesThePreviousHostOfACachedEngine() {
+    TestHost first = new TestHost();
+    NativeViewGestureHandler firstGestureHandler = first.delegate.getGestureHandler();
+    assertNotNull(firstGestureHandler);
+
+    TestHost second =
+        new TestHost(Robolectric.buildActivity(Activity.class).setup().get(), first.engine, null);
+
+    assertNull(first.delegate.getGestureHandler());
+    assertSame(second.delegate, NativeViewPlugin.of(first.engine).boundDelegate);
+    // The old host going away afterwards leaves the new one's channels alone.
+    first.delegate.cleanUpFlutterEngine(first.engine);
+    first.delegate.onDestroy();
+    assertSame(second.delegate, NativeViewPlugin.of(first.engine).boundDelegate);
+    assertTrue(first.messenger.hasHandler(TestHost.CHANNEL));
+
+    second.delegate.cleanUpFlutterEngine(second.engine);
+    assertNull(NativeViewPlugin.of(first.engine).boundDelegate);
+    assertFalse(first.messenger.hasHandler(TestHost.CHANNEL));
+  }
+
+  @Test
+  public void hideView_uncoversTheViewBelowAndRoutesTouchesToIt() {
+    TestHost host = new TestHost();
+    Map<String, NativeView> views = new HashMap<>();
+    for (String key : new String[] {"bottom", "middle", "top"}) {
+      host.delegate.registerNativeViewFactory(
+          key,
+          () -> {
+            NativeView view = new OpaqueNativeView();
+            views.put(key, view);
+            return view;
+          });
+      assertTrue(host.delegate.addView(key));
+      assertTrue(host.delegate.showView(key));
+    }
+    View container = (View) views.get("top").getView().getParent();
+    container.layout(0, 0, 100, 100);
+    assertEquals(2, host.delegate.getOccludedViewCount());
+
+    assertTrue(host.delegate.hideView("top"));
+
+    assertSame(views.get("middle"), host.delegate.getActiveNativeView());
+    assertSame(views.get("middle").getView(), host.delegate.getGestureHandler().getTargetView());
+    assertEquals(View.VISIBLE, views.get("middle").getView().getVisibility());
+    assertEquals(View.INVISIBLE, views.get("bottom").getView().getVisibility());
+    assertEquals(1, host.delegate.getOccludedViewCount());
+    assertEquals(1, host.delegate.getDrawnViewCount());
+    host.delegate.onDestroy();
+  }
+
+  @Test
+  public void addView_awaitsTheFirstDrawOnlyOfNewViewsUntilTheyAreHiddenOrRemoved() {
+    TestHost host = new TestHost();
+    host.registerViews("view", 2);
+    host.delegate.addMetricsListener((viewKey, metric, durationNanos) -> {});
+
+    assertTrue(host.delegate.addView("view0"));
+    assertTrue(host.delegate.addView("view0"));
+    assertTrue(host.delegate.addView("view1"));
+    assertEquals(2, host.delegate.getAwaitedFirstDrawCount());
+
+    assertTrue(host.delegate.showView("view0"));
+    assertTrue(host.delegate.hideView("view0"));
+    assertTrue(host.delegate.removeView("view1"));
+    assertEquals(0, host.delegate.getAwaitedFirstDrawCount());
+
+    assertTrue(host.delegate.showView("view0"));
+    assertEquals(0, host.delegate.getAwaitedFirstDrawCount());
+    host.delegate.onDestroy();
+  }
+
+  @Test
+  public void onRetainNonConfigurationInstance_leavesViewsBoundToTheOldActivityBehind() {
+    TestHost first = new TestHost();
+    Map<String, TestNativeView> views = new HashMap<>();
+    for (String key : new String[] {"early", "late"}) {
+      first.delegate.registerNativeViewFactory(
+          key,
+          () -> {
+            TestNativeView view = new TestNativeView();
+            views.put(key, view);
+            return view;
+          });
+    }
+    assertTrue(first.delegate.addView("early"));
+    first.delegate.setRetainViewsAcrossConfigChanges(true);
+    assertTrue(first.delegate.addView("late"));
+
+    Object retained = first.delegate.onRetainNonConfigurationInstance();
+    first.delegate.onDestroy();
+    assertEquals(1, views.get("early").disposeCount);
+    assertEquals(0, views.get("late").disposeCount);
+
+    TestHost second =
+        new TestHost(
+            Robolectric.buildActivity(Activity.class).setup().get(), first.engine, retained);
+    assertSame(views.get("late"), second.delegate.getNativeView("late"));
+    assertNull(second.delegate.getNativeView("early"));
+    second.delegate.onDestroy();
+  }
+
+  private static void invoke(TestHost host, String method, String viewKey, List<String> replies) {
+    host.messenger.invokeMethod(
+        TestHost.CHANNEL,
+        method,
+        Collections.singletonMap("viewKey", viewKey),
+        reply -> replies.add(method + " " + viewKey));
+  }
+
+  private static TrimFixture trim(int level) {
+    TrimFixture fixture = new TrimFixture();
+    fixture.host.delegate.onTrimMemory(level);
+    for (TestNativeView view : fixture.views.values()) {
+      assertEquals(Collections.singletonList(level), view.trimLevels);
+    }
+    return fixture;
+  }
+}
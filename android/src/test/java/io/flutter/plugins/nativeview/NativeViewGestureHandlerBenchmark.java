@@ -0,0 +1,111 @@
+package io.flutter.plugins.nativeview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import android.app.Activity;
+import android.view.MotionEvent;
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Touch dispatch throughput and allocations per event. Run with {@code -Pnativeview.benchmark}.
+ *
+ * <p>Two views sit side by side: {@code left} covers x 0-500 and {@code right} x 500-1000.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class NativeViewGestureHandlerBenchmark {
+
+  private static final int WARMUP = 20_000;
+  private static final int MEASURED = 200_000;
+
+  private NativeViewGestureHandler handler;
+  private TouchEvents.CountingView left;
+  private TouchEvents.CountingView right;
+
+  @Before
+  public void setUp() {
+    assumeTrue(Benchmark.isEnabled());
+    Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+    left = new TouchEvents.CountingView(activity, 0, 0, 500, 1000);
+    right = new TouchEvents.CountingView(activity, 500, 0, 1000, 1000);
+    handler = new NativeViewGestureHandler(new FakeBinaryMessenger());
+    handler.setTargetViews(Arrays.asList(left, right));
+  }
+
+  @After
+  public void tearDown() {
+    if (handler != null) {
+      handler.dispose();
+    }
+  }
+
+  @Test
+  public void singleTouchMove() throws Exception {
+    MotionEvent move = TouchEvents.obtain(MotionEvent.ACTION_MOVE, 0, 100, 100);
+    handler.dispatchTouchEvent(TouchEvents.obtain(MotionEvent.ACTION_DOWN, 0, 100, 100));
+
+    Benchmark.measure(
+        "dispatch/singleTouch/move", WARMUP, MEASURED, i -> handler.dispatchTouchEvent(move));
+
+    assertTrue(left.eventCount > MEASURED);
+  }
+
+  @Test
+  public void multiTouchMoveOnOneView() throws Exception {
+    MotionEvent move = TouchEvents.obtain(MotionEvent.ACTION_MOVE, 0, 100, 100, 200, 200);
+    handler.dispatchTouchEvent(TouchEvents.obtain(MotionEvent.ACTION_DOWN, 0, 100, 100));
+    handler.dispatchTouchEvent(
+        TouchEvents.obtain(MotionEvent.ACTION_POINTER_DOWN, 1, 100, 100, 200, 200));
+
+    Benchmark.measure(
+        "dispatch/multiTouch/oneView/move",
+        WARMUP,
+        MEASURED,
+        i -> handler.dispatchTouchEvent(move));
+
+    assertTrue(left.eventCount > MEASURED);
+  }
+
+  @Test
+  public void multiTouchMoveSplitAcrossViews() throws Exception {
+    MotionEvent move = TouchEvents.obtain(MotionEvent.ACTION_MOVE, 0, 100, 100, 700, 200);
+    handler.dispatchTouchEvent(TouchEvents.obtain(MotionEvent.ACTION_DOWN, 0, 100, 100));
+    handler.dispatchTouchEvent(
+        TouchEvents.obtain(MotionEvent.ACTION_POINTER_DOWN, 1, 100, 100, 700, 200));
+
+    Benchmark.measure(
+        "dispatch/multiTouch/split/move", WARMUP, MEASURED, i -> handler.dispatchTouchEvent(move));
+
+    assertTrue(left.eventCount > MEASURED);
+    assertTrue(right.eventCount > MEASURED);
+  }
+
+  /** One op is a full sequence: down, move, claim (which cancels the view's gesture), move, up. */
+  @Test
+  public void claimAndCancel() throws Exception {
+    MotionEvent down = TouchEvents.obtain(MotionEvent.ACTION_DOWN, 0, 100, 100);
+    MotionEvent move = TouchEvents.obtain(MotionEvent.ACTION_MOVE, 0, 120, 120);
+    MotionEvent up = TouchEvents.obtain(MotionEvent.ACTION_UP, 0, 120, 120);
+
+    Benchmark.measure(
+        "claim/cancel/sequence",
+        WARMUP / 10,
+        MEASURED / 10,
+        i -> {
+          handler.dispatchTouchEvent(down);
+          handler.dispatchTouchEvent(move);
+          handler.claimPointer(0);
+          handler.dispatchTouchEvent(move);
+          handler.dispatchTouchEvent(up);
+        });
+
+    assertEquals(MotionEvent.ACTION_CANCEL, left.lastAction);
+  }
+}
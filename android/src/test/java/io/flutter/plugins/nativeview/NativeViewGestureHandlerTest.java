@@ -0,0 +1,234 @@
+package io.flutter.plugins.nativeview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Looper;
+import android.view.MotionEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class NativeViewGestureHandlerTest {
+
+  private static final int EVENTS = 100_000;
+  private static final int ROUNDS = 5;
+  private static final int SEQUENCES = 2_000;
+
+  private NativeViewGestureHandler handler;
+  private TouchEvents.CountingView left;
+  private TouchEvents.CountingView right;
+
+  /** Keeps the baseline's reads from being optimized away. */
+  private long sink;
+
+  @Before
+  public void setUp() {
+    Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+    left = new TouchEvents.CountingView(activity, 0, 0, 500, 1000);
+    right = new TouchEvents.CountingView(activity, 500, 0, 1000, 1000);
+    handler = new NativeViewGestureHandler(new FakeBinaryMessenger());
+    handler.setTargetViews(Arrays.asList(left, right));
+  }
+
+  @After
+  public void tearDown() {
+    handler.dispose();
+  }
+
+  /**
+   * Steady-state moves must not allocate. Robolectric's MotionEvent itself allocates when read,
+   * so the handler is compared against a loop that reads and forwards the event the same way.
+   */
+  @Test
+  public void moveDispatchDoesNotAllocate() {
+    assumeTrue(Benchmark.allocatedBytes() >= 0);
+    MotionEvent move = TouchEvents.obtain(MotionEvent.ACTION_MOVE, 0, 100, 100);
+    handler.dispatchTouchEvent(TouchEvents.obtain(MotionEvent.ACTION_DOWN, 0, 100, 100));
+
+    long handlerBytes = Long.MAX_VALUE;
+    long baselineBytes = Long.MAX_VALUE;
+    // Warm up both loops first, then keep the quietest round of each.
+    for (int round = 0; round <= ROUNDS; round++) {
+      long start = Benchmark.allocatedBytes();
+      for (int i = 0; i < EVENTS; i++) {
+        handler.dispatchTouchEvent(move);
+      }
+      long handlerRound = Benchmark.allocatedBytes() - start;
+
+      start = Benchmark.allocatedBytes();
+      for (int i = 0; i < EVENTS; i++) {
+        readAndForward(move);
+      }
+      long baselineRound = Benchmark.allocatedBytes() - start;
+
+      if (round > 0) {
+        handlerBytes = Math.min(handlerBytes, handlerRound);
+        baselineBytes = Math.min(baselineBytes, baselineRound);
+      }
+    }
+
+    assertEquals(MotionEvent.ACTION_MOVE, left.lastAction);
+    assertTrue(
+        "Dispatch allocated " + (handlerBytes - baselineBytes) + " bytes over " + EVENTS + " moves",
+        handlerBytes - baselineBytes < EVENTS);
+  }
+
+  /**
+   * Claims and releases pointers on a background thread while touch sequences are dispatched. Each
+   * view must see whole gestures: a down first, then moves, ending in an up or a cancel, and
+   * nothing after a cancel until the next down.
+   */
+  @Test
+  public void claimsFromAnotherThreadNeverLeaveAGestureOpen() throws Exception {
+    Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+    GestureCheckingView checkedLeft = new GestureCheckingView(activity, 0, 0, 500, 1000);
+    GestureCheckingView checkedRight = new GestureCheckingView(activity, 500, 0, 1000, 1000);
+    handler.setTargetViews(Arrays.asList(checkedLeft, checkedRight));
+
+    AtomicBoolean running = new AtomicBoolean(true);
+    Thread claimer =
+        new Thread(
+            () -> {
+              for (int i = 0; running.get(); i++) {
+                int pointerId = (i >> 1) & 1;
+                if ((i & 1) == 0) {
+                  handler.claimPointer(pointerId);
+                } else {
+                  handler.releasePointer(pointerId);
+                }
+                Thread.yield();
+              }
+            });
+    claimer.start();
+    try {
+      for (int i = 0; i < SEQUENCES; i++) {
+        dispatchAndIdle(TouchEvents.obtain(MotionEvent.ACTION_DOWN, 0, 100, 100));
+        dispatchAndIdle(TouchEvents.obtain(MotionEvent.ACTION_MOVE, 0, 110, 100));
+        dispatchAndIdle(TouchEvents.obtain(MotionEvent.ACTION_POINTER_DOWN, 1, 110, 100, 700, 100));
+        dispatchAndIdle(TouchEvents.obtain(MotionEvent.ACTION_MOVE, 0, 120, 100, 710, 100));
+        dispatchAndIdle(TouchEvents.obtain(MotionEvent.ACTION_POINTER_UP, 1, 120, 100, 710, 100));
+        dispatchAndIdle(TouchEvents.obtain(MotionEvent.ACTION_MOVE, 0, 130, 100));
+        dispatchAndIdle(TouchEvents.obtain(MotionEvent.ACTION_UP, 0, 130, 100));
+        checkedLeft.assertGestureClosed();
+        checkedRight.assertGestureClosed();
+      }
+    } finally {
+      running.set(false);
+      claimer.join();
+    }
+
+    assertEquals(Collections.emptyList(), checkedLeft.errors);
+    assertEquals(Collections.emptyList(), checkedRight.errors);
+    assertTrue(checkedLeft.gestures > 0);
+  }
+
+  /** A pointer outside every view must not be forwarded along with one that is on a view. */
+  @Test
+  public void pointersOutsideEveryViewAreSplitOff() {
+    Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+    List<String> received = new ArrayList<>();
+    TouchEvents.CountingView recording =
+        new TouchEvents.CountingView(activity, 0, 0, 500, 1000) {
+          @Override
+          public boolean dispatchTouchEvent(MotionEvent event) {
+            received.add(
+                MotionEvent.actionToString(event.getActionMasked())
+                    + " "
+                    + event.getPointerCount()
+                    + " "
+                    + event.getPointerId(0));
+            return super.dispatchTouchEvent(event);
+          }
+        };
+    handler.setTargetViews(Collections.singletonList(recording));
+
+    // Pointer 0 goes down below the view, pointer 1 on it.
+    dispatchAndIdle(TouchEvents.obtain(MotionEvent.ACTION_DOWN, 0, 100, 1500));
+    dispatchAndIdle(TouchEvents.obtain(MotionEvent.ACTION_POINTER_DOWN, 1, 100, 1500, 100, 100));
+    dispatchAndIdle(TouchEvents.obtain(MotionEvent.ACTION_MOVE, 0, 110, 1500, 110, 100));
+    dispatchAndIdle(TouchEvents.obtain(MotionEvent.ACTION_POINTER_UP, 0, 110, 1500, 110, 100));
+    handler.claimPointer(1);
+
+    assertEquals(
+        Arrays.asList(
+            "ACTION_DOWN 1 1", "ACTION_MOVE 1 1", "ACTION_MOVE 1 1", "ACTION_CANCEL 1 0"),
+        received);
+  }
+
+  private void dispatchAndIdle(MotionEvent event) {
+    handler.dispatchTouchEvent(event);
+    event.recycle();
+    shadowOf(Looper.getMainLooper()).idle();
+  }
+
+  /** A view that records every break of the down, move, up-or-cancel order it receives. */
+  private static final class GestureCheckingView extends TouchEvents.CountingView {
+    final List<String> errors = new ArrayList<>();
+    boolean inGesture;
+    int gestures;
+
+    GestureCheckingView(Context context, int left, int top, int right, int bottom) {
+      super(context, left, top, right, bottom);
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+      super.dispatchTouchEvent(event);
+      int action = event.getActionMasked();
+      if (action == MotionEvent.ACTION_DOWN) {
+        check(!inGesture, "down inside a gesture");
+        inGesture = true;
+        gestures++;
+      } else {
+        check(inGesture, MotionEvent.actionToString(action) + " outside a gesture");
+        if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+          inGesture = false;
+        }
+      }
+      return true;
+    }
+
+    void assertGestureClosed() {
+      check(!inGesture, "gesture left open at the end of the sequence");
+      inGesture = false;
+    }
+
+    private void check(boolean condition, String error) {
+      if (!condition && errors.size() < 10) {
+        errors.add(error);
+      }
+    }
+  }
+
+  /** Reads and forwards the event the way the handler does for a move, without any routing. */
+  private void readAndForward(MotionEvent event) {
+    int pointerId = event.getPointerId(event.getActionIndex());
+    for (int i = 0; i < event.getPointerCount(); i++) {
+      pointerId |= event.getPointerId(i);
+    }
+    if (event.getActionMasked() != MotionEvent.ACTION_MOVE || pointerId < 0) {
+      return;
+    }
+    sink += event.getEventTime() + event.getMetaState();
+    float x = event.getX();
+    float y = event.getY();
+    event.offsetLocation(-x, -y);
+    left.dispatchTouchEvent(event);
+    event.offsetLocation(x, y);
+  }
+}
@@ -0,0 +1,142 @@
+package io.flutter.plugins.nativeview;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import androidx.annotation.NonNull;
+import io.flutter.plugin.common.MethodChannel;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Throughput of the per-view binary channel against a standard-codec {@link MethodChannel}
+ * carrying the same markers, each a latitude and longitude. Run with {@code
+ * -Pnativeview.benchmark}.
+ *
+ * <p>Messages go through {@link FakeBinaryMessenger}, so the numbers cover encoding on the sending
+ * side, decoding and the handler on the native side, but not the engine's transport.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class NativeViewMessageBenchmark {
+
+  private static final int[] MARKER_COUNTS = {10, 1_000};
+  private static final int BYTES_PER_OP = 1 << 24;
+
+  /** Sums the coordinates it receives so the decoding cannot be skipped. */
+  private static final class MarkerNativeView extends TestNativeView {
+    double sum;
+
+    @Override
+    protected void onMessage(@NonNull ByteBuffer message) {
+      ByteBuffer markers = message.order(ByteOrder.nativeOrder());
+      while (markers.remaining() >= 16) {
+        sum += markers.getDouble() + markers.getDouble();
+      }
+    }
+  }
+
+  private TestHost host;
+  private MarkerNativeView view;
+
+  @Before
+  public void setUp() {
+    assumeTrue(Benchmark.isEnabled());
+    host = new TestHost();
+    view = new MarkerNativeView();
+    host.delegate.registerNativeViewFactory("markers", () -> view);
+    host.delegate.addView("markers");
+  }
+
+  @After
+  public void tearDown() {
+    if (host != null) {
+      host.delegate.onDestroy();
+    }
+  }
+
+  @Test
+  public void binaryChannel() throws Exception {
+    String channel = TestHost.CHANNEL + "/view/markers";
+    for (int count : MARKER_COUNTS) {
+      ByteBuffer message = ByteBuffer.allocateDirect(count * 16).order(ByteOrder.nativeOrder());
+      view.sum = 0;
+
+      Benchmark.Result result =
+          Benchmark.measure(
+              "message/binary/" + count + "markers",
+              operations(count) / 10,
+              operations(count),
+              i -> {
+                message.clear();
+                for (int m = 0; m < count; m++) {
+                  message.putDouble(m).putDouble(m);
+                }
+                message.flip();
+                host.messenger.deliver(channel, message, reply -> {});
+              });
+
+      assertTrue(view.sum > 0);
+      reportThroughput(result, count);
+    }
+  }
+
+  @Test
+  public void standardMethodChannel() throws Exception {
+    String channel = "plugins.flutter.dev/native_view_benchmark/markers";
+    double[] sum = new double[1];
+    new MethodChannel(host.messenger, channel)
+        .setMethodCallHandler(
+            (call, reply) -> {
+              List<Map<String, Object>> markers = call.arguments();
+              for (Map<String, Object> marker : markers) {
+                sum[0] += (Double) marker.get("lat") + (Double) marker.get("lng");
+              }
+              reply.success(null);
+            });
+
+    for (int count : MARKER_COUNTS) {
+      List<Map<String, Object>> markers = new ArrayList<>(count);
+      for (int m = 0; m < count; m++) {
+        Map<String, Object> marker = new HashMap<>();
+        marker.put("lat", (double) m);
+        marker.put("lng", (double) m);
+        markers.add(marker);
+      }
+      sum[0] = 0;
+
+      Benchmark.Result result =
+          Benchmark.measure(
+              "message/methodChannel/" + count + "markers",
+              operations(count) / 10,
+              operations(count),
+              i -> host.messenger.invokeMethod(channel, "setMarkers", markers));
+
+      assertTrue(sum[0] > 0);
+      reportThroughput(result, count);
+    }
+  }
+
+  /** Scales the number of ops so that every payload size moves about the same amount of data. */
+  private static int operations(int markerCount) {
+    return Math.max(100, BYTES_PER_OP / (markerCount * 16));
+  }
+
+  private static void reportThroughput(Benchmark.Result result, int markerCount) {
+    System.out.println(
+        String.format(
+            Locale.US,
+            "%-56s %14.0f markers/s",
+            result.name,
+            result.opsPerSecond * markerCount));
+  }
+}
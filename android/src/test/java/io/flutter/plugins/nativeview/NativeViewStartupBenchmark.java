@@ -0,0 +1,119 @@
+package io.flutter.plugins.nativeview;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.app.Activity;
+import io.flutter.embedding.engine.FlutterEngine;
+import io.flutter.embedding.engine.FlutterEngineCache;
+import io.flutter.embedding.engine.FlutterJNI;
+import io.flutter.embedding.engine.loader.FlutterLoader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Host startup on a fresh engine against a cached one. Run with {@code -Pnativeview.benchmark}.
+ *
+ * <p>One op starts a native view host the way an activity does. Cold, it constructs a new {@link
+ * FlutterEngine} first. Warm, it takes the engine from {@link FlutterEngineCache}, where a previous
+ * host left it. Both engines are real apart from their native side, which is mocked, so the numbers
+ * cover the engine's Java setup and the plugin's binding, but not starting the Dart isolate or
+ * drawing the first frame.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class NativeViewStartupBenchmark {
+
+  private static final String ENGINE_ID = "native_view_benchmark";
+  private static final int OPERATIONS = 500;
+
+  private Activity activity;
+  private TestHost host;
+  private final List<FlutterEngine> engines = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    assumeTrue(Benchmark.isEnabled());
+    activity = Robolectric.buildActivity(Activity.class).setup().get();
+  }
+
+  @After
+  public void tearDown() {
+    destroyHost();
+    FlutterEngineCache.getInstance().remove(ENGINE_ID);
+    for (FlutterEngine engine : engines) {
+      engine.destroy();
+    }
+  }
+
+  @Test
+  public void freshEngine() throws Exception {
+    // The mocks stand in for native code; creating them is not part of the startup.
+    int total = OPERATIONS / 10 + OPERATIONS;
+    FlutterJNI[] natives = new FlutterJNI[total];
+    FlutterLoader[] loaders = new FlutterLoader[total];
+    for (int i = 0; i < total; i++) {
+      natives[i] = mockFlutterJNI();
+      loaders[i] = mockFlutterLoader();
+    }
+
+    Benchmark.measure(
+        "startup/freshEngine",
+        OPERATIONS / 10,
+        OPERATIONS,
+        i -> {
+          destroyHost();
+          FlutterEngine engine = new FlutterEngine(activity, loaders[i], natives[i]);
+          engines.add(engine);
+          host = new TestHost(activity, engine, null);
+        });
+  }
+
+  @Test
+  public void cachedEngine() throws Exception {
+    FlutterEngine cached = new FlutterEngine(activity, mockFlutterLoader(), mockFlutterJNI());
+    engines.add(cached);
+    FlutterEngineCache.getInstance().put(ENGINE_ID, cached);
+
+    Benchmark.measure(
+        "startup/cachedEngine",
+        OPERATIONS / 10,
+        OPERATIONS,
+        i -> {
+          destroyHost();
+          host = new TestHost(activity, FlutterEngineCache.getInstance().get(ENGINE_ID), null);
+        });
+
+    assertSame(host.delegate, NativeViewPlugin.of(cached).boundDelegate);
+  }
+
+  /** Tears the current host down as its activity would, leaving the engine alive. */
+  private void destroyHost() {
+    if (host != null) {
+      host.delegate.cleanUpFlutterEngine(host.engine);
+      host.delegate.onDestroy();
+      host = null;
+    }
+  }
+
+  // Real engines with a mocked native side, the way Flutter's own tests build them.
+
+  private static FlutterJNI mockFlutterJNI() {
+    FlutterJNI flutterJNI = mock(FlutterJNI.class);
+    when(flutterJNI.isAttached()).thenReturn(true);
+    return flutterJNI;
+  }
+
+  private static FlutterLoader mockFlutterLoader() {
+    FlutterLoader flutterLoader = mock(FlutterLoader.class);
+    when(flutterLoader.automaticallyRegisterPlugins()).thenReturn(false);
+    return flutterLoader;
+  }
+}
@@ -0,0 +1,88 @@
+package io.flutter.plugins.nativeview;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.app.Activity;
+import android.view.View;
+import androidx.annotation.Nullable;
+import io.flutter.embedding.engine.FlutterEngine;
+import io.flutter.embedding.engine.dart.DartExecutor;
+import io.flutter.embedding.engine.plugins.PluginRegistry;
+import io.flutter.plugin.common.BinaryMessenger;
+import org.robolectric.Robolectric;
+
+/**
+ * A Robolectric activity with a stand-in Flutter view, a mocked {@link FlutterEngine} talking to a
+ * {@link FakeBinaryMessenger}, and a {@link NativeViewDelegate} set up the way the native view
+ * activities set it up.
+ */
+final class TestHost implements NativeViewDelegate.Host {
+
+  static final String CHANNEL = "plugins.flutter.dev/native_view_flutter_activity";
+
+  final Activity activity;
+  /** The messenger of a mocked engine; null around a real one. */
+  @Nullable final FakeBinaryMessenger messenger;
+  final FlutterEngine engine;
+  final NativeViewDelegate delegate;
+
+  TestHost() {
+    this(Robolectric.buildActivity(Activity.class).setup().get(), null, null);
+  }
+
+  /**
+   * Sets up a host in {@code activity} around {@code engine}, as when an activity is recreated
+   * around a cached engine, or around a new engine if it is null.
+   */
+  TestHost(
+      Activity activity,
+      @Nullable FlutterEngine engine,
+      @Nullable Object lastNonConfigurationInstance) {
+    this.activity = activity;
+    activity.setContentView(new View(activity));
+    if (engine == null) {
+      messenger = new FakeBinaryMessenger();
+      this.engine = newEngine(messenger);
+    } else {
+      BinaryMessenger engineMessenger = engine.getDartExecutor().getBinaryMessenger();
+      messenger = engineMessenger instanceof FakeBinaryMessenger fake ? fake : null;
+      this.engine = engine;
+    }
+    delegate = new NativeViewDelegate(this);
+    delegate.onCreate(lastNonConfigurationInstance);
+    delegate.configureFlutterEngine(this.engine);
+  }
+
+  /**
+   * Returns a mocked engine whose Dart executor sends through {@code messenger}, with {@link
+   * NativeViewPlugin} registered as the generated plugin registrant would.
+   */
+  static FlutterEngine newEngine(FakeBinaryMessenger messenger) {
+    FlutterEngine engine = mock(FlutterEngine.class);
+    DartExecutor dartExecutor = mock(DartExecutor.class);
+    PluginRegistry plugins = mock(PluginRegistry.class);
+    when(engine.getDartExecutor()).thenReturn(dartExecutor);
+    when(dartExecutor.getBinaryMessenger()).thenReturn(messenger);
+    when(engine.getPlugins()).thenReturn(plugins);
+    when(plugins.get(NativeViewPlugin.class)).thenReturn(new NativeViewPlugin());
+    return engine;
+  }
+
+  /** Registers factories for {@code prefix + i}, for i from 0 to {@code count - 1}. */
+  void registerViews(String prefix, int count) {
+    for (int i = 0; i < count; i++) {
+      delegate.registerNativeViewFactory(prefix + i, TestNativeView::new);
+    }
+  }
+
+  @Override
+  public Activity getActivity() {
+    return activity;
+  }
+
+  @Override
+  public void updateGestureHandlerTarget(@Nullable NativeView nativeView) {
+    delegate.defaultUpdateGestureHandlerTarget(nativeView);
+  }
+}
@@ -0,0 +1,29 @@
+package io.flutter.plugins.nativeview;
+
+import android.view.View;
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+
+/** A {@link NativeView} with a plain {@link View} that records the callbacks it receives. */
+class TestNativeView extends NativeView {
+
+  final List<Integer> trimLevels = new ArrayList<>();
+  int disposeCount;
+
+  @NonNull
+  @Override
+  protected View onCreateView() {
+    return new View(getContext());
+  }
+
+  @Override
+  protected void onTrimMemory(int level) {
+    trimLevels.add(level);
+  }
+
+  @Override
+  protected void onDispose() {
+    disposeCount++;
+  }
+}
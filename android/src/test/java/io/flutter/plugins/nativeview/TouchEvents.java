@@ -0,0 +1,72 @@
+package io.flutter.plugins.nativeview;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.view.InputDevice;
+import android.view.MotionEvent;
+import android.view.View;
+import androidx.annotation.NonNull;
+
+/** Builds touch events for gesture handler tests and benchmarks. */
+final class TouchEvents {
+
+  private TouchEvents() {}
+
+  /**
+   * Returns an event with one pointer per {@code x, y} pair in {@code coordinates}, pointer IDs
+   * counting from 0. {@code actionIndex} is encoded into pointer down and up actions.
+   */
+  @NonNull
+  static MotionEvent obtain(int action, int actionIndex, float... coordinates) {
+    int count = coordinates.length / 2;
+    MotionEvent.PointerProperties[] properties = new MotionEvent.PointerProperties[count];
+    MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[count];
+    for (int i = 0; i < count; i++) {
+      properties[i] = new MotionEvent.PointerProperties();
+      properties[i].id = i;
+      properties[i].toolType = MotionEvent.TOOL_TYPE_FINGER;
+      coords[i] = new MotionEvent.PointerCoords();
+      coords[i].x = coordinates[2 * i];
+      coords[i].y = coordinates[2 * i + 1];
+      coords[i].pressure = 1;
+      coords[i].size = 1;
+    }
+    if (action == MotionEvent.ACTION_POINTER_DOWN || action == MotionEvent.ACTION_POINTER_UP) {
+      action |= actionIndex << MotionEvent.ACTION_POINTER_INDEX_SHIFT;
+    }
+    long now = SystemClock.uptimeMillis();
+    return MotionEvent.obtain(
+        now,
+        now,
+        action,
+        count,
+        properties,
+        coords,
+        0,
+        0,
+        1,
+        1,
+        0,
+        0,
+        InputDevice.SOURCE_TOUCHSCREEN,
+        0);
+  }
+
+  /** A view that counts the touch events it receives and remembers the last action. */
+  static class CountingView extends View {
+    int eventCount;
+    int lastAction = -1;
+
+    CountingView(@NonNull Context context, int left, int top, int right, int bottom) {
+      super(context);
+      layout(left, top, right, bottom);
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+      eventCount++;
+      lastAction = event.getActionMasked();
+      return true;
+    }
+  }
+}
@@ -1,12 +1,215 @@
+import 'dart:async';
+import 'dart:collection';
+import 'dart:typed_data';
+
+import 'package:flutter/scheduler.dart';
 import 'package:flutter/services.dart';
 import 'package:flutter/widgets.dart';
 
+import 'native_view_visibility.dart';
+
+/// The kind of change a [NativeViewOperation] applies.
+enum NativeViewOperationType {
+  /// Creates and adds a native view to the hierarchy.
+  add,
+
+  /// Shows a native view that is in the hierarchy.
+  show,
+
+  /// Hides a native view that is in the hierarchy.
+  hide,
+
+  /// Removes and disposes a native view.
+  remove,
+}
+
+/// A single step of a [NativeViewChannel.applyTransaction] call.
+@immutable
+class NativeViewOperation {
+  /// Creates an operation of the given [type] for [viewKey].
+  const NativeViewOperation(this.type, this.viewKey, {this.params});
+
+  /// Adds the view identified by [viewKey], passing [params] to the native
+  /// view as its creation params.
+  const NativeViewOperation.add(this.viewKey, {this.params})
+    : type = NativeViewOperationType.add;
+
+  /// Shows the view identified by [viewKey].
+  const NativeViewOperation.show(this.viewKey)
+    : type = NativeViewOperationType.show,
+      params = null;
+
+  /// Hides the view identified by [viewKey].
+  const NativeViewOperation.hide(this.viewKey)
+    : type = NativeViewOperationType.hide,
+      params = null;
+
+  /// Removes the view identified by [viewKey].
+  const NativeViewOperation.remove(this.viewKey)
+    : type = NativeViewOperationType.remove,
+      params = null;
+
+  /// The kind of change to apply.
+  final NativeViewOperationType type;
+
+  /// The key of the native view the change applies to.
+  final String viewKey;
+
+  /// The creation params of an add, encoded with the standard message codec.
+  final Map<String, Object?>? params;
+
+  Map<String, dynamic> _toMap() => <String, dynamic>{
+    'op': type.name,
+    'viewKey': viewKey,
+    if (params != null) 'params': params,
+  };
+}
+
+/// A copy of a native view's content in a Flutter texture.
+///
+/// Captured with [NativeViewChannel.captureSnapshot] so the content can be
+/// shown and animated by Flutter while the live view is parked.
+@immutable
+class NativeViewSnapshot {
+  /// Creates a snapshot description.
+  const NativeViewSnapshot({
+    required this.textureId,
+    required this.size,
+    required this.captureTime,
+    required this.textureBytes,
+  });
+
+  factory NativeViewSnapshot._fromMap(Map<Object?, Object?> map) {
+    return NativeViewSnapshot(
+      textureId: map['textureId']! as int,
+      size: Size(
+        (map['width']! as int).toDouble(),
+        (map['height']! as int).toDouble(),
+      ),
+      captureTime: Duration(microseconds: map['captureMicros']! as int),
+      textureBytes: map['textureBytes']! as int,
+    );
+  }
+
+  /// The texture to pass to a [Texture] widget.
+  final int textureId;
+
+  /// The size of the texture in physical pixels.
+  final Size size;
+
+  /// How long the native side took to draw the view into the texture.
+  final Duration captureTime;
+
+  /// Estimated memory held by the texture.
+  final int textureBytes;
+}
+
+/// The kind of a [NativeViewEvent].
+enum NativeViewEventType {
+  /// The view was created and attached.
+  created,
+
+  /// The view has drawn its first frame while shown.
+  firstFrame,
+
+  /// The view was shown.
+  shown,
+
+  /// The view was hidden.
+  hidden,
+
+  /// The view was disposed by the hidden view cache.
+  evicted,
+
+  /// The view was removed.
+  disposed,
+
+  /// An operation on the view failed; see [NativeViewEvent.message].
+  error,
+}
+
+/// A lifecycle change of a native view, pushed by the native side.
+///
+/// See [NativeViewChannel.events].
+@immutable
+class NativeViewEvent {
+  /// Creates an event.
+  const NativeViewEvent(this.type, this.viewKey, [this.message]);
+
+  factory NativeViewEvent._fromMap(Map<Object?, Object?> map) {
+    return NativeViewEvent(
+      NativeViewEventType.values.byName(map['type']! as String),
+      map['viewKey']! as String,
+      map['message'] as String?,
+    );
+  }
+
+  /// What happened.
+  final NativeViewEventType type;
+
+  /// The key of the native view the event is about.
+  final String viewKey;
+
+  /// A description of the failure for [NativeViewEventType.error] events.
+  final String? message;
+}
+
+/// Aggregated durations of one measured operation.
+///
+/// See [NativeViewChannel.getViewMetrics] and
+/// [NativeViewChannel.channelCallTimings].
+@immutable
+class NativeViewTiming {
+  /// Creates a timing summary.
+  const NativeViewTiming({
+    required this.count,
+    required this.last,
+    required this.total,
+    required this.max,
+  });
+
+  factory NativeViewTiming._fromMap(Map<Object?, Object?> map) {
+    return NativeViewTiming(
+      count: map['count']! as int,
+      last: Duration(microseconds: map['lastMicros']! as int),
+      total: Duration(microseconds: map['totalMicros']! as int),
+      max: Duration(microseconds: map['maxMicros']! as int),
+    );
+  }
+
+  /// How many times the operation was measured.
+  final int count;
+
+  /// The most recent duration.
+  final Duration last;
+
+  /// The sum of all durations.
+  final Duration total;
+
+  /// The longest duration.
+  final Duration max;
+
+  /// The mean duration, or [Duration.zero] if nothing was measured.
+  Duration get average => count == 0 ? Duration.zero : total ~/ count;
+
+  NativeViewTiming _add(Duration duration) {
+    return NativeViewTiming(
+      count: count + 1,
+      last: duration,
+      total: total + duration,
+      max: duration > max ? duration : max,
+    );
+  }
+}
+
 /// Channel for communicating with native views in NativeViewFlutterActivity.
 ///
 /// This channel allows Dart widgets to register and control native views
 /// that are rendered below the transparent Flutter view.
 class NativeViewChannel {
-  NativeViewChannel._();
+  NativeViewChannel._() {
+    _channel.setMethodCallHandler(_handleMethodCall);
+  }
 
   static final NativeViewChannel _instance = NativeViewChannel._();
 
@@ -17,10 +220,176 @@ class NativeViewChannel {
     'plugins.flutter.dev/native_view_flutter_activity',
   );
 
+  static const EventChannel _eventChannel = EventChannel(
+    'plugins.flutter.dev/native_view_flutter_activity/events',
+  );
+
+  /// Lifecycle events of all native views, pushed by the native side as they
+  /// happen.
+  late final Stream<NativeViewEvent> events = _eventChannel
+      .receiveBroadcastStream()
+      .map(
+        (Object? event) =>
+            NativeViewEvent._fromMap(event! as Map<Object?, Object?>),
+      );
+
+  bool _metricsEnabled = false;
+  final Map<String, NativeViewTiming> _channelCallTimings =
+      <String, NativeViewTiming>{};
+
+  final List<ValueChanged<String>> _evictionListeners =
+      <ValueChanged<String>>[];
+  final List<VoidCallback> _hostResetListeners = <VoidCallback>[];
+
+  /// Registers a callback invoked when the native side evicts a hidden view
+  /// to stay within its hidden view cache budget.
+  ///
+  /// Evicted views are re-added transparently by the next [showView].
+  void addEvictionListener(ValueChanged<String> listener) {
+    _evictionListeners.add(listener);
+  }
+
+  /// Removes a callback registered with [addEvictionListener].
+  void removeEvictionListener(ValueChanged<String> listener) {
+    _evictionListeners.remove(listener);
+  }
+
+  /// Registers a callback invoked when a new native host attaches to this
+  /// engine, e.g. when an activity is recreated around a cached engine.
+  ///
+  /// The new host may not have the views the previous one had, so listeners
+  /// re-apply the native view state they know about.
+  void addHostResetListener(VoidCallback listener) {
+    _hostResetListeners.add(listener);
+  }
+
+  /// Removes a callback registered with [addHostResetListener].
+  void removeHostResetListener(VoidCallback listener) {
+    _hostResetListeners.remove(listener);
+  }
+
+  /// Enables timing of view lifecycle operations on the native side and of
+  /// channel calls on the Dart side.
+  ///
+  /// Disabled by default; while disabled, nothing is measured.
+  Future<void> setMetricsEnabled(bool enabled) async {
+    _metricsEnabled = enabled;
+    try {
+      await _channel.invokeMethod<void>(
+        'setMetricsEnabled',
+        <String, dynamic>{'enabled': enabled},
+      );
+    } catch (e) {
+      debugPrint('NativeViewChannel.setMetricsEnabled error: $e');
+    }
+  }
+
+  /// Gets the native timings collected per view key, keyed by metric name:
+  /// `create`, `firstDraw`, `show`, `hide` and `dispose`.
+  Future<Map<String, Map<String, NativeViewTiming>>> getViewMetrics() async {
+    try {
+      final Map<String, Object?>? result = await _channel
+          .invokeMapMethod<String, Object?>('getViewMetrics');
+      if (result == null) {
+        return const <String, Map<String, NativeViewTiming>>{};
+      }
+      return result.map(
+        (String viewKey, Object? metrics) => MapEntry(
+          viewKey,
+          (metrics! as Map<Object?, Object?>).map(
+            (Object? name, Object? timing) => MapEntry(
+              name! as String,
+              NativeViewTiming._fromMap(timing! as Map<Object?, Object?>),
+            ),
+          ),
+        ),
+      );
+    } catch (e) {
+      debugPrint('NativeViewChannel.getViewMetrics error: $e');
+      return const <String, Map<String, NativeViewTiming>>{};
+    }
+  }
+
+  /// Time from invoking each channel method to receiving its reply, keyed by
+  /// method name. Only collected while metrics are enabled.
+  Map<String, NativeViewTiming> get channelCallTimings =>
+      Map<String, NativeViewTiming>.unmodifiable(_channelCallTimings);
+
+  Future<T?> _invokeMethod<T>(String method, [dynamic arguments]) {
+    // Arguments are evaluated in order, so timing starts before the send.
+    return _timed(
+      method,
+      _startTiming(),
+      _channel.invokeMethod<T>(method, arguments),
+    );
+  }
+
+  Future<List<T>?> _invokeListMethod<T>(String method, [dynamic arguments]) {
+    return _timed(
+      method,
+      _startTiming(),
+      _channel.invokeListMethod<T>(method, arguments),
+    );
+  }
+
+  Future<Map<K, V>?> _invokeMapMethod<K, V>(
+    String method, [
+    dynamic arguments,
+  ]) {
+    return _timed(
+      method,
+      _startTiming(),
+      _channel.invokeMapMethod<K, V>(method, arguments),
+    );
+  }
+
+  Stopwatch? _startTiming() => _metricsEnabled ? (Stopwatch()..start()) : null;
+
+  Future<R> _timed<R>(
+    String method,
+    Stopwatch? stopwatch,
+    Future<R> reply,
+  ) async {
+    if (stopwatch == null) {
+      return reply;
+    }
+    try {
+      return await reply;
+    } finally {
+      _channelCallTimings[method] =
+          (_channelCallTimings[method] ?? _zeroTiming)._add(stopwatch.elapsed);
+    }
+  }
+
+  static const NativeViewTiming _zeroTiming = NativeViewTiming(
+    count: 0,
+    last: Duration.zero,
+    total: Duration.zero,
+    max: Duration.zero,
+  );
+
+  Future<void> _handleMethodCall(MethodCall call) async {
+    switch (call.method) {
+      case 'onViewEvicted':
+        final String viewKey =
+            (call.arguments as Map<Object?, Object?>)['viewKey']! as String;
+        for (final ValueChanged<String> listener
+            in List<ValueChanged<String>>.of(_evictionListeners)) {
+          listener(viewKey);
+        }
+      case 'onHostReset':
+        for (final VoidCallback listener in List<VoidCallback>.of(
+          _hostResetListeners,
+        )) {
+          listener();
+        }
+    }
+  }
+
   /// Shows a native view that is already in the hierarchy.
   Future<bool> showView(String viewKey) async {
     try {
-      final bool? result = await _channel.invokeMethod<bool>(
+      final bool? result = await _invokeMethod<bool>(
         'showView',
         <String, dynamic>{'viewKey': viewKey},
       );
@@ -34,7 +403,7 @@ class NativeViewChannel {
   /// Hides a native view that is in the hierarchy.
   Future<bool> hideView(String viewKey) async {
     try {
-      final bool? result = await _channel.invokeMethod<bool>(
+      final bool? result = await _invokeMethod<bool>(
         'hideView',
         <String, dynamic>{'viewKey': viewKey},
       );
@@ -48,7 +417,7 @@ class NativeViewChannel {
   /// Gets the key of the currently active native view, or null if none.
   Future<String?> getActiveViewKey() async {
     try {
-      return await _channel.invokeMethod<String>('getActiveViewKey');
+      return await _invokeMethod<String>('getActiveViewKey');
     } catch (e) {
       debugPrint('NativeViewChannel.getActiveViewKey error: $e');
       return null;
@@ -58,7 +427,7 @@ class NativeViewChannel {
   /// Checks if a native view with the given key is in the hierarchy.
   Future<bool> hasView(String viewKey) async {
     try {
-      final bool? result = await _channel.invokeMethod<bool>(
+      final bool? result = await _invokeMethod<bool>(
         'hasView',
         <String, dynamic>{'viewKey': viewKey},
       );
@@ -70,11 +439,18 @@ class NativeViewChannel {
   }
 
   /// Creates and adds a native view to the hierarchy.
-  Future<bool> addView(String viewKey) async {
+  ///
+  /// [params] are available to the native view as its creation params.
+  /// Views that prepare in the background on the native side complete once
+  /// they are ready, without blocking the platform thread in the meantime.
+  Future<bool> addView(String viewKey, {Map<String, Object?>? params}) async {
     try {
-      final bool? result = await _channel.invokeMethod<bool>(
+      final bool? result = await _invokeMethod<bool>(
         'addView',
-        <String, dynamic>{'viewKey': viewKey},
+        <String, dynamic>{
+          'viewKey': viewKey,
+          if (params != null) 'params': params,
+        },
       );
       return result ?? false;
     } catch (e) {
@@ -83,10 +459,151 @@ class NativeViewChannel {
     }
   }
 
+  /// Applies [operations] in order within a single channel call and a single
+  /// pass on the platform thread.
+  ///
+  /// Returns the result of each operation, in order. If the call fails, every
+  /// operation is reported as failed.
+  Future<List<bool>> applyTransaction(
+    List<NativeViewOperation> operations,
+  ) async {
+    try {
+      final List<bool>? result = await _invokeListMethod<bool>(
+        'applyTransaction',
+        <String, dynamic>{
+          'operations': operations
+              .map((NativeViewOperation operation) => operation._toMap())
+              .toList(),
+        },
+      );
+      return result ?? List<bool>.filled(operations.length, false);
+    } catch (e) {
+      debugPrint('NativeViewChannel.applyTransaction error: $e');
+      return List<bool>.filled(operations.length, false);
+    }
+  }
+
+  /// Positions and sizes native views to match their Flutter widgets.
+  ///
+  /// [bounds] maps view keys to rects in physical pixels relative to the
+  /// Flutter view. All entries are sent in a single message.
+  Future<void> updateViewBounds(Map<String, Rect> bounds) async {
+    final Float64List values = Float64List(bounds.length * 4);
+    int i = 0;
+    for (final Rect rect in bounds.values) {
+      values[i++] = rect.left;
+      values[i++] = rect.top;
+      values[i++] = rect.width;
+      values[i++] = rect.height;
+    }
+    try {
+      await _invokeMethod<void>('updateViewBounds', <String, dynamic>{
+        'viewKeys': bounds.keys.toList(),
+        'bounds': values,
+      });
+    } catch (e) {
+      debugPrint('NativeViewChannel.updateViewBounds error: $e');
+    }
+  }
+
+  /// Sends property patches to native views, calling
+  /// `NativeView.onPropertiesChanged()` once per view.
+  ///
+  /// [patches] maps view keys to the changed properties, with null for
+  /// removed ones. All entries are sent in a single message.
+  Future<void> updateProperties(
+    Map<String, Map<String, Object?>> patches,
+  ) async {
+    try {
+      await _invokeMethod<void>('updateProperties', <String, dynamic>{
+        'patches': patches,
+      });
+    } catch (e) {
+      debugPrint('NativeViewChannel.updateProperties error: $e');
+    }
+  }
+
+  /// Draws the current content of a native view into a texture and parks the
+  /// live view until [releaseSnapshot] is called.
+  ///
+  /// Returns null if the view does not exist or has not been laid out yet.
+  Future<NativeViewSnapshot?> captureSnapshot(String viewKey) async {
+    try {
+      final Map<Object?, Object?>? result =
+          await _invokeMethod<Map<Object?, Object?>>(
+            'captureSnapshot',
+            <String, dynamic>{'viewKey': viewKey},
+          );
+      return result != null ? NativeViewSnapshot._fromMap(result) : null;
+    } catch (e) {
+      debugPrint('NativeViewChannel.captureSnapshot error: $e');
+      return null;
+    }
+  }
+
+  /// Releases the snapshot texture of a native view and swaps the live view
+  /// back in.
+  Future<bool> releaseSnapshot(String viewKey) async {
+    try {
+      final bool? result = await _invokeMethod<bool>(
+        'releaseSnapshot',
+        <String, dynamic>{'viewKey': viewKey},
+      );
+      return result ?? false;
+    } catch (e) {
+      debugPrint('NativeViewChannel.releaseSnapshot error: $e');
+      return false;
+    }
+  }
+
+  /// Gets snapshot counters: `captureCount`, `totalCaptureMicros`,
+  /// `liveTextureCount` and `liveTextureBytes`.
+  Future<Map<String, int>> getSnapshotStats() async {
+    try {
+      final Map<String, int>? result = await _invokeMapMethod<String, int>(
+        'getSnapshotStats',
+      );
+      return result ?? const <String, int>{};
+    } catch (e) {
+      debugPrint('NativeViewChannel.getSnapshotStats error: $e');
+      return const <String, int>{};
+    }
+  }
+
+  /// Asks the native side to build the given views during main-thread idle
+  /// time, so a later [addView] only has to attach them.
+  Future<void> prewarmViews(List<String> viewKeys) async {
+    try {
+      await _invokeMethod<void>(
+        'prewarmViews',
+        <String, dynamic>{'viewKeys': viewKeys},
+      );
+    } catch (e) {
+      debugPrint('NativeViewChannel.prewarmViews error: $e');
+    }
+  }
+
+  /// Prewarms a single native view. See [prewarmViews].
+  Future<void> prewarmView(String viewKey) => prewarmViews(<String>[viewKey]);
+
+  /// Gets how many adds were served by a prewarmed view (`hits`) and how many
+  /// arrived before their prewarm had run (`misses`).
+  Future<Map<String, int>> getPrewarmStats() async {
+    try {
+      final Map<String, int>? result = await _invokeMapMethod<String, int>(
+        'getPrewarmStats',
+      );
+      return result ?? const <String, int>{};
+    } catch (e) {
+      debugPrint('NativeViewChannel.getPrewarmStats error: $e');
+      return const <String, int>{};
+    }
+  }
+
   /// Removes and disposes a native view from the hierarchy.
   Future<bool> removeView(String viewKey) async {
     try {
-      final bool? result = await _channel.invokeMethod<bool>(
+      final bool? result = await _invokeMethod<bool>(
         'removeView',
         <String, dynamic>{'viewKey': viewKey},
       );
@@ -98,6 +615,99 @@ class NativeViewChannel {
   }
 }
 
+/// A binary message channel scoped to one native view.
+///
+/// Payloads travel as raw bytes, without codec encoding, and arrive in
+/// `NativeView.onMessage` on the native side. At most [maxInFlight] messages
+/// are unacknowledged at a time; further messages wait in a queue of at most
+/// [maxQueued] entries, and the oldest are dropped when the native side falls
+/// behind.
+class NativeViewMessenger {
+  /// Creates a messenger for the native view identified by [viewKey].
+  NativeViewMessenger(this.viewKey, {this.maxInFlight = 1, this.maxQueued = 16})
+    : _channelName =
+          'plugins.flutter.dev/native_view_flutter_activity/view/$viewKey';
+
+  /// The key of the native view this messenger talks to.
+  final String viewKey;
+
+  /// How many messages may be on their way to the native side at once.
+  final int maxInFlight;
+
+  /// How many messages may wait for an in-flight slot before the oldest are
+  /// dropped.
+  final int maxQueued;
+
+  final String _channelName;
+  final ListQueue<ByteData> _queue = ListQueue<ByteData>();
+  int _inFlight = 0;
+  int _droppedCount = 0;
+  bool _disposed = false;
+
+  /// How many messages were dropped because the queue was full.
+  int get droppedCount => _droppedCount;
+
+  /// How many messages are waiting to be sent.
+  int get queuedCount => _queue.length;
+
+  /// Sends [message] to the native view, or queues it while [maxInFlight]
+  /// messages are unacknowledged.
+  void send(ByteData message) {
+    if (_disposed) {
+      return;
+    }
+    if (_inFlight < maxInFlight) {
+      _dispatch(message);
+      return;
+    }
+    _queue.addLast(message);
+    while (_queue.length > maxQueued) {
+      _queue.removeFirst();
+      _droppedCount++;
+    }
+  }
+
+  Future<void> _dispatch(ByteData message) async {
+    _inFlight++;
+    try {
+      await ServicesBinding.instance.defaultBinaryMessenger.send(
+        _channelName,
+        message,
+      );
+    } catch (e) {
+      debugPrint('NativeViewMessenger.send error: $e');
+    } finally {
+      _inFlight--;
+      if (!_disposed && _queue.isNotEmpty) {
+        _dispatch(_queue.removeFirst());
+      }
+    }
+  }
+
+  /// Sets the callback for messages the native view sends with
+  /// `NativeView.sendMessage`, or removes it when null.
+  void setMessageHandler(ValueChanged<ByteData>? handler) {
+    ServicesBinding.instance.defaultBinaryMessenger.setMessageHandler(
+      _channelName,
+      handler == null
+          ? null
+          : (ByteData? message) async {
+              if (message != null) {
+                handler(message);
+              }
+              return null;
+            },
+    );
+  }
+
+  /// Drops queued messages and removes the message handler.
+  void dispose() {
+    _disposed = true;
+    _queue.clear();
+    setMessageHandler(null);
+  }
+}
+
 /// Base widget for native views rendered below the Flutter layer.
 ///
 /// Handles adding/removing native views on widget lifecycle. Renders a
@@ -109,6 +719,53 @@ abstract class NativeViewWidget extends StatefulWidget {
   /// The unique key identifying the native view to control.
   String get viewKey;
 
+  /// Whether the native view is positioned and sized to match this widget.
+  ///
+  /// When false, the native view fills the whole native view container.
+  bool get syncBounds => true;
+
+  /// Whether a texture snapshot of the native view is shown while the
+  /// enclosing route transitions.
+  ///
+  /// The live native view sits below the Flutter view and cannot follow a page
+  /// transition. When enabled, its content is captured into a texture that
+  /// moves with this widget, and the live view is parked until the transition
+  /// ends.
+  bool get useSnapshotDuringTransitions => false;
+
+  /// Whether the native view is hidden automatically while this widget cannot
+  /// be seen, and shown again when it can.
+  ///
+  /// The widget counts as not visible while tickers are disabled for it (for
+  /// example when its route is covered by an opaque route), while it is not
+  /// painted (for example inside [Offstage] or a non-selected [IndexedStack]
+  /// child), or while it has zero size.
+  bool get autoHide => true;
+
+  /// How long the visibility must stay the same before [autoHide] applies it,
+  /// so quick back-and-forth navigation does not flood the channel.
+  Duration get autoHideDebounce => const Duration(milliseconds: 100);
+
+  /// Params passed to the native view when it is created, available there
+  /// from `NativeView.getCreationParams()`. Changes after the first add have
+  /// no effect; use [properties] for values that change.
+  Map<String, Object?> get creationParams => const <String, Object?>{};
+
+  /// Values the native view follows while the widget is mounted.
+  ///
+  /// On every rebuild only the entries that changed are sent, and all changes
+  /// made within one frame reach `NativeView.onPropertiesChanged()` as a
+  /// single patch. Removed entries are sent as null.
+  Map<String, Object?> get properties => const <String, Object?>{};
+
+  /// Builds a widget shown in place of the native view until it has drawn
+  /// its first frame, or null to show the transparent hole right away.
+  Widget? buildPlaceholder(BuildContext context) => null;
+
+  /// Called with a binary message the native view sent with
+  /// `NativeView.sendMessage`. See [NativeViewWidgetState.messenger].
+  void onMessage(ByteData message) {}
+
   /// Called when the native view has been shown.
   void onViewShown() {}
 
@@ -122,23 +779,74 @@ abstract class NativeViewWidget extends StatefulWidget {
 
 /// State for [NativeViewWidget].
 ///
-/// Lifecycle: [initState] → [addNativeView] → [showNativeView],
+/// Lifecycle: first [didChangeDependencies] → [addNativeView] (add and show
+/// in one transaction), visibility changes → [showNativeView] /
+/// [hideNativeView], [didUpdateWidget] → [replaceNativeView],
 /// [dispose] → [removeNativeView].
 class NativeViewWidgetState<T extends NativeViewWidget> extends State<T> {
   bool _isShown = false;
+  double _devicePixelRatio = 1.0;
+  Rect? _reportedBounds;
+  ModalRoute<Object?>? _route;
+  NativeViewSnapshot? _snapshot;
+  bool _snapshotRequested = false;
+  bool _isAdded = false;
+  bool _tickerEnabled = true;
+  bool _visibleInLayout = true;
+  bool _wantsVisible = true;
+  Timer? _visibilityTimer;
+  bool _firstFrameDrawn = false;
+  StreamSubscription<NativeViewEvent>? _events;
+  AppLifecycleListener? _resumeListener;
+  late NativeViewMessenger _messenger;
+  Map<String, Object?> _sentProperties = const <String, Object?>{};
+  Map<String, Object?>? _pendingProperties;
 
   /// Whether the native view is currently shown.
   @protected
   bool get isShown => _isShown;
 
+  /// The binary message channel to this widget's native view. Incoming
+  /// messages are delivered to [NativeViewWidget.onMessage].
+  @protected
+  NativeViewMessenger get messenger => _messenger;
+
   @override
   void initState() {
     super.initState();
-    addNativeView();
+    _events = NativeViewChannel.instance.events.listen(_onEvent);
+    _createMessenger();
+    _NativeViewBoundsTracker.instance.register(this);
+    NativeViewChannel.instance.addHostResetListener(_onHostReset);
+  }
+
+  @override
+  void didChangeDependencies() {
+    super.didChangeDependencies();
+    _devicePixelRatio = View.of(context).devicePixelRatio;
+    _tickerEnabled = TickerMode.of(context);
+    _updateRoute();
+    if (!_isAdded) {
+      // The first add happens here rather than in initState so that a widget
+      // built with tickers disabled is added without being shown.
+      _isAdded = true;
+      _wantsVisible = _computeWantsVisible();
+      addNativeView();
+      _queueProperties();
+    } else {
+      _updateVisibility();
+    }
   }
 
   @override
   void dispose() {
+    _events?.cancel();
+    _resumeListener?.dispose();
+    _messenger.dispose();
+    _visibilityTimer?.cancel();
+    _setRoute(null);
+    NativeViewChannel.instance.removeHostResetListener(_onHostReset);
+    _NativeViewBoundsTracker.instance.unregister(this);
     removeNativeView();
     super.dispose();
   }
@@ -147,22 +855,269 @@ class NativeViewWidgetState<T extends NativeViewWidget> extends State<T> {
   void didUpdateWidget(T oldWidget) {
     super.didUpdateWidget(oldWidget);
     if (oldWidget.viewKey != widget.viewKey) {
-      removeNativeViewByKey(oldWidget.viewKey);
-      addNativeView();
+      _reportedBounds = null;
+      if (_snapshot != null) {
+        _snapshot = null;
+        NativeViewChannel.instance.releaseSnapshot(oldWidget.viewKey);
+      }
+      _firstFrameDrawn = false;
+      _messenger.dispose();
+      _createMessenger();
+      _sentProperties = const <String, Object?>{};
+      _pendingProperties = null;
+      replaceNativeView(oldWidget.viewKey);
+    }
+    _queueProperties();
+    _updateRoute();
+    _updateVisibility();
+  }
+
+  /// Merges the entries of [NativeViewWidget.properties] that differ from the
+  /// last sent ones into the patch flushed by [_NativeViewBoundsTracker].
+  void _queueProperties() {
+    final Map<String, Object?> properties = widget.properties;
+    if (identical(properties, _sentProperties)) {
+      return;
+    }
+    Map<String, Object?>? patch = _pendingProperties;
+    properties.forEach((String name, Object? value) {
+      if (!_sentProperties.containsKey(name) ||
+          !_propertyEquals(_sentProperties[name], value)) {
+        (patch ??= <String, Object?>{})[name] = value;
+      }
+    });
+    for (final String name in _sentProperties.keys) {
+      if (!properties.containsKey(name)) {
+        (patch ??= <String, Object?>{})[name] = null;
+      }
+    }
+    _sentProperties = properties;
+    if (patch != null && _pendingProperties == null) {
+      _pendingProperties = patch;
+      SchedulerBinding.instance.ensureVisualUpdate();
+    }
+  }
+
+  Map<String, Object?>? _takePropertyPatch() {
+    final Map<String, Object?>? patch = _pendingProperties;
+    _pendingProperties = null;
+    return patch;
+  }
+
+  static bool _propertyEquals(Object? a, Object? b) {
+    if (a is List && b is List) {
+      if (a.length != b.length) {
+        return false;
+      }
+      for (int i = 0; i < a.length; i++) {
+        if (!_propertyEquals(a[i], b[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+    if (a is Map && b is Map) {
+      if (a.length != b.length) {
+        return false;
+      }
+      for (final Object? key in a.keys) {
+        if (!b.containsKey(key) || !_propertyEquals(a[key], b[key])) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return a == b;
+  }
+
+  void _createMessenger() {
+    _messenger = NativeViewMessenger(widget.viewKey)
+      ..setMessageHandler((ByteData message) => widget.onMessage(message));
+  }
+
+  void _onEvent(NativeViewEvent event) {
+    if (event.viewKey != widget.viewKey) {
+      return;
+    }
+    switch (event.type) {
+      case NativeViewEventType.firstFrame:
+        if (!_firstFrameDrawn) {
+          setState(() {
+            _firstFrameDrawn = true;
+          });
+        }
+      case NativeViewEventType.evicted:
+        _firstFrameDrawn = false;
+        if (_isShown) {
+          setState(() {
+            _isShown = false;
+          });
+          widget.onViewHidden();
+          _restoreEvictedView();
+        }
+      case NativeViewEventType.disposed:
+        _firstFrameDrawn = false;
+      case NativeViewEventType.created:
+      case NativeViewEventType.shown:
+      case NativeViewEventType.hidden:
+      case NativeViewEventType.error:
+        break;
+    }
+  }
+
+  /// Shows a view the native side evicted while it was shown, which re-creates
+  /// it. In the background this waits for the app to resume, so the memory
+  /// stays released until the view can be seen again.
+  void _restoreEvictedView() {
+    if (SchedulerBinding.instance.lifecycleState ==
+        AppLifecycleState.resumed) {
+      _reconcileVisibility();
+      return;
+    }
+    _resumeListener ??= AppLifecycleListener(
+      onResume: () {
+        _resumeListener?.dispose();
+        _resumeListener = null;
+        if (mounted) {
+          _reconcileVisibility();
+        }
+      },
+    );
+  }
+
+  bool _computeWantsVisible() =>
+      !widget.autoHide || (_tickerEnabled && _visibleInLayout);
+
+  /// Called by [_NativeViewBoundsTracker] after layout with whether this
+  /// widget is painted and has a non-zero size.
+  void _updateLayoutVisibility(bool visible) {
+    if (visible != _visibleInLayout) {
+      _visibleInLayout = visible;
+      _updateVisibility();
     }
   }
 
-  /// Adds the native view to the hierarchy and shows it.
+  void _updateVisibility() {
+    final bool wantsVisible = _computeWantsVisible();
+    if (wantsVisible == _wantsVisible) {
+      return;
+    }
+    _wantsVisible = wantsVisible;
+    _visibilityTimer?.cancel();
+    _visibilityTimer = Timer(widget.autoHideDebounce, _applyVisibility);
+  }
+
+  void _applyVisibility() {
+    _visibilityTimer = null;
+    if (!mounted) {
+      return;
+    }
+    if (_wantsVisible && !_isShown) {
+      showNativeView();
+    } else if (!_wantsVisible && _isShown) {
+      hideNativeView();
+    }
+  }
+
+  void _updateRoute() {
+    _setRoute(
+      widget.useSnapshotDuringTransitions ? ModalRoute.of(context) : null,
+    );
+  }
+
+  void _setRoute(ModalRoute<Object?>? route) {
+    if (route == _route) {
+      return;
+    }
+    _route?.animation?.removeStatusListener(_onRouteAnimationStatus);
+    _route?.secondaryAnimation?.removeStatusListener(_onRouteAnimationStatus);
+    _route = route;
+    _route?.animation?.addStatusListener(_onRouteAnimationStatus);
+    _route?.secondaryAnimation?.addStatusListener(_onRouteAnimationStatus);
+  }
+
+  bool get _isRouteTransitioning {
+    final ModalRoute<Object?>? route = _route;
+    return route != null &&
+        ((route.animation?.isAnimating ?? false) ||
+            (route.secondaryAnimation?.isAnimating ?? false));
+  }
+
+  void _onRouteAnimationStatus(AnimationStatus status) {
+    if (_isRouteTransitioning) {
+      _beginTransitionSnapshot();
+    } else {
+      _endTransitionSnapshot();
+    }
+  }
+
+  Future<void> _beginTransitionSnapshot() async {
+    if (!_isShown || _snapshot != null || _snapshotRequested) {
+      return;
+    }
+    final String viewKey = widget.viewKey;
+    _snapshotRequested = true;
+    final NativeViewSnapshot? snapshot = await NativeViewChannel.instance
+        .captureSnapshot(viewKey);
+    _snapshotRequested = false;
+    if (snapshot == null) {
+      return;
+    }
+    if (!mounted || !_isRouteTransitioning || viewKey != widget.viewKey) {
+      NativeViewChannel.instance.releaseSnapshot(viewKey);
+      return;
+    }
+    setState(() {
+      _snapshot = snapshot;
+    });
+  }
+
+  void _endTransitionSnapshot() {
+    if (_snapshot == null) {
+      return;
+    }
+    setState(() {
+      _snapshot = null;
+    });
+    NativeViewChannel.instance.releaseSnapshot(widget.viewKey);
+  }
+
+  /// Adds the native view to the hierarchy and shows it, unless the widget
+  /// is currently not visible (see [NativeViewWidget.autoHide]).
   @protected
   Future<void> addNativeView() async {
-    final bool success = await NativeViewChannel.instance.addView(
-      widget.viewKey,
-    );
-    if (success && mounted) {
-      await showNativeView();
+    final bool show = _wantsVisible;
+    final List<bool> results = await NativeViewChannel.instance
+        .applyTransaction(<NativeViewOperation>[
+          NativeViewOperation.add(widget.viewKey, params: _creationParams),
+          if (show) NativeViewOperation.show(widget.viewKey),
+        ]);
+    if (show && results.last && mounted) {
+      _markShown();
     }
   }
 
+  /// Swaps the native view for [oldViewKey] with the one for the current
+  /// [NativeViewWidget.viewKey] in a single transaction.
+  @protected
+  Future<void> replaceNativeView(String oldViewKey) async {
+    final bool show = _wantsVisible;
+    final List<bool> results = await NativeViewChannel.instance
+        .applyTransaction(<NativeViewOperation>[
+          NativeViewOperation.remove(oldViewKey),
+          NativeViewOperation.add(widget.viewKey, params: _creationParams),
+          if (show) NativeViewOperation.show(widget.viewKey),
+        ]);
+    if (show && results.last && mounted) {
+      _markShown();
+    }
+  }
+
+  Map<String, Object?>? get _creationParams {
+    final Map<String, Object?> params = widget.creationParams;
+    return params.isEmpty ? null : params;
+  }
+
   /// Shows the native view. Called after [addNativeView].
   @protected
   Future<void> showNativeView() async {
@@ -170,10 +1125,64 @@ class NativeViewWidgetState<T extends NativeViewWidget> extends State<T> {
       widget.viewKey,
     );
     if (success && mounted) {
+      _markShown();
+    }
+  }
+
+  /// Hides the native view without removing it.
+  @protected
+  Future<void> hideNativeView() async {
+    final bool success = await NativeViewChannel.instance.hideView(
+      widget.viewKey,
+    );
+    if (success && mounted && _isShown) {
       setState(() {
-        _isShown = true;
+        _isShown = false;
       });
-      widget.onViewShown();
+      widget.onViewHidden();
+      _reconcileVisibility();
+    }
+  }
+
+  /// Re-adds the native view on a new host, and shows it again if it was
+  /// shown. Bounds are re-reported on the next frame.
+  void _onHostReset() {
+    _reportedBounds = null;
+    _snapshotRequested = false;
+    if (_snapshot != null) {
+      // The texture belonged to the previous host and is gone.
+      setState(() {
+        _snapshot = null;
+      });
+    }
+    if (_isShown) {
+      addNativeView();
+    } else {
+      NativeViewChannel.instance.addView(
+        widget.viewKey,
+        params: _creationParams,
+      );
+    }
+    // The new host has none of the properties; send them all again.
+    _sentProperties = const <String, Object?>{};
+    _pendingProperties = null;
+    _queueProperties();
+    SchedulerBinding.instance.scheduleFrame();
+  }
+
+  void _markShown() {
+    setState(() {
+      _isShown = true;
+    });
+    widget.onViewShown();
+    _reconcileVisibility();
+  }
+
+  /// Catches visibility changes that arrived while a show or hide was in
+  /// flight.
+  void _reconcileVisibility() {
+    if (_visibilityTimer == null && _wantsVisible != _isShown) {
+      _applyVisibility();
     }
   }
 
@@ -195,6 +1204,92 @@ class NativeViewWidgetState<T extends NativeViewWidget> extends State<T> {
 
   @override
   Widget build(BuildContext context) {
+    final NativeViewSnapshot? snapshot = _snapshot;
+    if (snapshot != null) {
+      return Texture(textureId: snapshot.textureId);
+    }
+    if (!_firstFrameDrawn) {
+      final Widget? placeholder = widget.buildPlaceholder(context);
+      if (placeholder != null) {
+        return placeholder;
+      }
+    }
     return const ColoredBox(color: Color(0x00000000));
   }
 }
+
+/// Reports the layout and properties of every mounted [NativeViewWidget] to
+/// the native side.
+///
+/// Bounds and property patches are collected after every frame, and all
+/// changes of a frame are sent in one [NativeViewChannel.updateViewBounds] and
+/// one [NativeViewChannel.updateProperties] call.
+class _NativeViewBoundsTracker {
+  _NativeViewBoundsTracker._();
+
+  static final _NativeViewBoundsTracker instance = _NativeViewBoundsTracker._();
+
+  final Set<NativeViewWidgetState<NativeViewWidget>> _states =
+      <NativeViewWidgetState<NativeViewWidget>>{};
+  bool _frameCallbackRegistered = false;
+
+  void register(NativeViewWidgetState<NativeViewWidget> state) {
+    _states.add(state);
+    if (!_frameCallbackRegistered) {
+      _frameCallbackRegistered = true;
+      SchedulerBinding.instance.addPersistentFrameCallback(_onFrame);
+    }
+  }
+
+  void unregister(NativeViewWidgetState<NativeViewWidget> state) {
+    _states.remove(state);
+  }
+
+  void _onFrame(Duration timeStamp) {
+    Map<String, Rect>? changed;
+    Map<String, Map<String, Object?>>? patches;
+    for (final NativeViewWidgetState<NativeViewWidget> state in _states) {
+      final Map<String, Object?>? patch = state._takePropertyPatch();
+      if (patch != null) {
+        (patches ??= <String, Map<String, Object?>>{})[state.widget.viewKey] =
+            patch;
+      }
+      final RenderObject? renderObject = state.context.findRenderObject();
+      if (renderObject is! RenderBox ||
+          !renderObject.attached ||
+          !renderObject.hasSize) {
+        state._updateLayoutVisibility(false);
+        continue;
+      }
+      state._updateLayoutVisibility(
+        !renderObject.size.isEmpty && isRenderObjectPainted(renderObject),
+      );
+      if (!state.widget.syncBounds) {
+        continue;
+      }
+      // The axis-aligned bounds of the global transform; rotation and skew
+      // are not reproduced on the native side.
+      final Rect rect = MatrixUtils.transformRect(
+        renderObject.getTransformTo(null),
+        Offset.zero & renderObject.size,
+      );
+      final Rect bounds = Rect.fromLTRB(
+        rect.left * state._devicePixelRatio,
+        rect.top * state._devicePixelRatio,
+        rect.right * state._devicePixelRatio,
+        rect.bottom * state._devicePixelRatio,
+      );
+      if (bounds == state._reportedBounds) {
+        continue;
+      }
+      state._reportedBounds = bounds;
+      (changed ??= <String, Rect>{})[state.widget.viewKey] = bounds;
+    }
+    if (patches != null) {
+      NativeViewChannel.instance.updateProperties(patches);
+    }
+    if (changed != null) {
+      NativeViewChannel.instance.updateViewBounds(changed);
+    }
+  }
+}
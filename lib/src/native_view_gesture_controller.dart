@@ -1,5 +1,48 @@
+import 'dart:typed_data';
+
+import 'package:flutter/foundation.dart';
 import 'package:flutter/services.dart';
 
+/// A percentile snapshot of an input histogram recorded on the native side.
+///
+/// Percentiles are bucket upper bounds, within 25% of the recorded values.
+@immutable
+class NativeViewInputHistogram {
+  const NativeViewInputHistogram._({
+    required this.count,
+    required this.p50,
+    required this.p90,
+    required this.p99,
+    required this.max,
+  });
+
+  factory NativeViewInputHistogram._fromMap(Map<Object?, Object?> map) {
+    int value(String key) => (map[key] as int?) ?? 0;
+    return NativeViewInputHistogram._(
+      count: value('count'),
+      p50: value('p50'),
+      p90: value('p90'),
+      p99: value('p99'),
+      max: value('max'),
+    );
+  }
+
+  /// Number of recorded values.
+  final int count;
+
+  /// The median.
+  final int p50;
+
+  /// The 90th percentile.
+  final int p90;
+
+  /// The 99th percentile.
+  final int p99;
+
+  /// The largest recorded value.
+  final int max;
+}
+
 /// Controller for managing native view gesture behavior.
 class NativeViewGestureController {
   NativeViewGestureController._();
@@ -23,7 +66,9 @@ class NativeViewGestureController {
 
   /// Claims a pointer for exclusive Flutter handling.
   ///
-  /// Automatically released when the touch sequence ends.
+  /// [pointerId] is the Android pointer ID, which Flutter reports as
+  /// [PointerEvent.device]. Automatically released when the touch sequence
+  /// ends.
   static Future<void> claimPointer(int pointerId) {
     return _channel.invokeMethod<void>('claimPointer', <String, dynamic>{
       'pointerId': pointerId,
@@ -43,4 +88,62 @@ class NativeViewGestureController {
       'pointerId': pointerId,
     });
   }
+
+  /// How long the native side holds back a new touch sequence while Flutter
+  /// decides whether to claim it. [Duration.zero] when disabled.
+  static Duration get holdBackWindow => _holdBackWindow;
+  static Duration _holdBackWindow = Duration.zero;
+
+  /// Holds back the events of every new touch sequence on a native view for
+  /// up to [window], so a pointer claimed by Flutter never reaches the native
+  /// view.
+  ///
+  /// The held events are dropped when [claimPointer] arrives, and dispatched
+  /// as a batch when `NativeViewOverlayApp` reports that the pointer landed on
+  /// a native view, or when [window] elapses. A frame is about 16 ms. Pass
+  /// [Duration.zero] to disable.
+  static Future<void> setHoldBackWindow(Duration window) {
+    _holdBackWindow = window;
+    return _channel.invokeMethod<void>('setHoldBackWindow', <String, dynamic>{
+      'millis': window.inMilliseconds,
+    });
+  }
+
+  /// Returns the input histograms recorded by the native gesture handler:
+  ///
+  /// * `dispatchDelay`: microseconds from the touch to its native dispatch.
+  /// * `claimLatency`: microseconds from a pointer's down to the arrival of
+  ///   its [claimPointer].
+  /// * `eventsBeforeCancel`: events a native view received before a claim
+  ///   cancelled its gesture.
+  ///
+  /// Histograms are recorded all the time. With [reset], they are cleared
+  /// after the snapshot is taken, so each call covers the time since the last.
+  static Future<Map<String, NativeViewInputHistogram>> getInputMetrics({
+    bool reset = false,
+  }) async {
+    final Map<Object?, Object?>? result = await _channel
+        .invokeMapMethod<Object?, Object?>(
+          'getInputMetrics',
+          <String, dynamic>{'reset': reset},
+        );
+    return <String, NativeViewInputHistogram>{
+      for (final MapEntry<Object?, Object?> entry
+          in (result ?? const <Object?, Object?>{}).entries)
+        entry.key! as String: NativeViewInputHistogram._fromMap(
+          entry.value! as Map<Object?, Object?>,
+        ),
+    };
+  }
+
+  /// Sets the regions covered by interactive overlay widgets.
+  ///
+  /// [regions] holds consecutive left, top, right, bottom values in physical
+  /// pixels. Pointers that go down inside a region are claimed on the native
+  /// side immediately, without waiting for [claimPointer].
+  static Future<void> setHitRegions(Float64List regions) {
+    return _channel.invokeMethod<void>('setHitRegions', <String, dynamic>{
+      'regions': regions,
+    });
+  }
 }
@@ -1,6 +1,11 @@
+import 'dart:typed_data';
+
+import 'package:flutter/scheduler.dart';
 import 'package:flutter/widgets.dart';
 
+import 'native_view.dart';
 import 'native_view_gesture_controller.dart';
+import 'native_view_visibility.dart';
 
 /// Global tracker for pointers that landed on the native view area.
 ///
@@ -15,20 +20,119 @@ class _NativeViewPointerTracker {
   /// Set of pointers that landed on the native view (not on overlay widgets).
   final Set<int> _pointersOnNativeView = <int>{};
 
+  /// Set of pointers that landed on a [NativeViewOverlayRegion], which the
+  /// native side has already claimed from its hit-test region map.
+  final Set<int> _pointersOnHitRegion = <int>{};
+
   /// Called when a pointer lands on the native view widget.
   void onNativeViewPointerDown(PointerDownEvent event) {
     _pointersOnNativeView.add(event.pointer);
   }
 
+  /// Called when a pointer lands on a registered overlay region.
+  void onHitRegionPointerDown(PointerDownEvent event) {
+    _pointersOnHitRegion.add(event.pointer);
+  }
+
   /// Called for all pointer down events at the app level.
   /// Claims pointers that didn't land on the native view.
   void onAppPointerDown(PointerDownEvent event) {
-    if (!_pointersOnNativeView.contains(event.pointer)) {
-      // This pointer didn't land on the native view, so claim it
-      NativeViewGestureController.claimPointer(event.pointer);
+    if (!_pointersOnNativeView.contains(event.pointer) ||
+        _pointersOnHitRegion.contains(event.pointer)) {
+      // This pointer didn't land on the native view, so claim it. On Android
+      // the platform pointer ID is reported as the event's device. Pointers on
+      // a region are usually claimed natively already, but the region map
+      // lags layout by a frame; the claim is idempotent.
+      NativeViewGestureController.claimPointer(event.device);
+    } else if (NativeViewGestureController.holdBackWindow > Duration.zero) {
+      // Tell the native side it may stop holding this pointer's events back.
+      NativeViewGestureController.releasePointer(event.device);
     }
-    // Clean up - remove from tracking set
+    // Clean up - remove from tracking sets
     _pointersOnNativeView.remove(event.pointer);
+    _pointersOnHitRegion.remove(event.pointer);
+  }
+}
+
+/// Keeps the native hit-test region map in sync with the layout of all
+/// mounted [NativeViewOverlayRegion] widgets.
+///
+/// Region bounds are collected after every frame and only sent to the native
+/// side when they changed. Regions that cannot be seen, because tickers are
+/// disabled for them (for example on a covered route), they are not painted
+/// or they have zero size, are left out.
+class _NativeViewHitRegionRegistry {
+  _NativeViewHitRegionRegistry._() {
+    NativeViewChannel.instance.addHostResetListener(_onHostReset);
+  }
+
+  static final _NativeViewHitRegionRegistry instance =
+      _NativeViewHitRegionRegistry._();
+
+  final Set<_NativeViewOverlayRegionState> _regions =
+      <_NativeViewOverlayRegionState>{};
+  Float64List _lastSent = Float64List(0);
+  bool _frameCallbackRegistered = false;
+
+  void register(_NativeViewOverlayRegionState region) {
+    _regions.add(region);
+    if (!_frameCallbackRegistered) {
+      _frameCallbackRegistered = true;
+      SchedulerBinding.instance.addPersistentFrameCallback(_onFrame);
+    }
+  }
+
+  void unregister(_NativeViewOverlayRegionState region) {
+    _regions.remove(region);
+    SchedulerBinding.instance.scheduleFrame();
+  }
+
+  /// A new native host starts without hit regions; send them again.
+  void _onHostReset() {
+    _lastSent = Float64List(0);
+    SchedulerBinding.instance.scheduleFrame();
+  }
+
+  void _onFrame(Duration timeStamp) {
+    final List<double> bounds = <double>[];
+    for (final _NativeViewOverlayRegionState region in _regions) {
+      final RenderObject? renderObject = region.context.findRenderObject();
+      if (!region.tickerEnabled ||
+          renderObject is! RenderBox ||
+          !renderObject.attached ||
+          !renderObject.hasSize ||
+          renderObject.size.isEmpty ||
+          !isRenderObjectPainted(renderObject)) {
+        continue;
+      }
+      final double devicePixelRatio = region.devicePixelRatio;
+      final Rect rect = MatrixUtils.transformRect(
+        renderObject.getTransformTo(null),
+        Offset.zero & renderObject.size,
+      );
+      bounds
+        ..add(rect.left * devicePixelRatio)
+        ..add(rect.top * devicePixelRatio)
+        ..add(rect.right * devicePixelRatio)
+        ..add(rect.bottom * devicePixelRatio);
+    }
+    if (_sameBounds(bounds)) {
+      return;
+    }
+    _lastSent = Float64List.fromList(bounds);
+    NativeViewGestureController.setHitRegions(_lastSent);
+  }
+
+  bool _sameBounds(List<double> bounds) {
+    if (bounds.length != _lastSent.length) {
+      return false;
+    }
+    for (int i = 0; i < bounds.length; i++) {
+      if (bounds[i] != _lastSent[i]) {
+        return false;
+      }
+    }
+    return true;
   }
 }
 
@@ -152,3 +256,97 @@ class NativeViewOverlayBody extends StatelessWidget {
     );
   }
 }
+
+/// A widget that marks an interactive Flutter widget drawn over the native
+/// view.
+///
+/// The bounds of every region are pushed to the native side whenever layout
+/// changes, so a pointer that goes down inside a region is claimed for Flutter
+/// on the platform thread before the native view sees any of its events.
+/// Without regions, claims still work but arrive asynchronously, after the
+/// native view has already received the first events.
+///
+/// This widget must be used in conjunction with [NativeViewOverlayApp] at the
+/// app level.
+///
+/// Example:
+/// ```dart
+/// Positioned(
+///   bottom: 16,
+///   child: NativeViewOverlayRegion(
+///     enabled: isNativeOverlayMode,
+///     child: FloatingActionButton(...),
+///   ),
+/// )
+/// ```
+class NativeViewOverlayRegion extends StatefulWidget {
+  /// Creates a native view overlay region.
+  const NativeViewOverlayRegion({
+    super.key,
+    required this.enabled,
+    required this.child,
+  });
+
+  /// Whether the region is reported to the native side.
+  final bool enabled;
+
+  /// The interactive widget drawn over the native view.
+  final Widget child;
+
+  @override
+  State<NativeViewOverlayRegion> createState() =>
+      _NativeViewOverlayRegionState();
+}
+
+class _NativeViewOverlayRegionState extends State<NativeViewOverlayRegion> {
+  double devicePixelRatio = 1.0;
+  bool tickerEnabled = true;
+
+  @override
+  void initState() {
+    super.initState();
+    if (widget.enabled) {
+      _NativeViewHitRegionRegistry.instance.register(this);
+    }
+  }
+
+  @override
+  void didChangeDependencies() {
+    super.didChangeDependencies();
+    devicePixelRatio = View.of(context).devicePixelRatio;
+    // Read again after the rebuild this triggers, by the same frame's
+    // registry pass.
+    tickerEnabled = TickerMode.of(context);
+  }
+
+  @override
+  void didUpdateWidget(NativeViewOverlayRegion oldWidget) {
+    super.didUpdateWidget(oldWidget);
+    if (widget.enabled != oldWidget.enabled) {
+      if (widget.enabled) {
+        _NativeViewHitRegionRegistry.instance.register(this);
+      } else {
+        _NativeViewHitRegionRegistry.instance.unregister(this);
+      }
+    }
+  }
+
+  @override
+  void dispose() {
+    _NativeViewHitRegionRegistry.instance.unregister(this);
+    super.dispose();
+  }
+
+  @override
+  Widget build(BuildContext context) {
+    if (!widget.enabled) {
+      return widget.child;
+    }
+
+    return Listener(
+      onPointerDown: _NativeViewPointerTracker.instance.onHitRegionPointerDown,
+      behavior: HitTestBehavior.translucent,
+      child: widget.child,
+    );
+  }
+}
@@ -0,0 +1,16 @@
+import 'package:flutter/rendering.dart';
+
+/// Whether every ancestor paints the path down to [renderObject], which is
+/// false inside [Offstage] or a non-selected [IndexedStack] child.
+bool isRenderObjectPainted(RenderObject renderObject) {
+  RenderObject child = renderObject;
+  RenderObject? parent = child.parent;
+  while (parent != null) {
+    if (!parent.paintsChild(child)) {
+      return false;
+    }
+    child = parent;
+    parent = child.parent;
+  }
+  return true;
+}